@@ -1,11 +1,46 @@
 package upb.ea.ea03_AnalisisDeAlgoritmos;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
 import edu.princeton.cs.algs4.StdIn;
 
+/**
+ * Generador de nombres completos sintéticos (dos nombres y dos apellidos).
+ *
+ * generar(n) usa StdRandom y devuelve un arreglo. Para archivos grandes el
+ * nombre i depende solo de la semilla y de i: los nombres se generan en
+ * bloques de BLOCK, y el bloque b usa su propio SplittableRandom derivado
+ * de (semilla, b). Así stream() puede dividirse entre hilos y escribir()
+ * puede generar bloques en paralelo y dar siempre la misma salida, sin
+ * tener todos los nombres en memoria.
+ */
 public class GeneradorNombres {
 
+    static final int BLOCK = 1 << 14;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
     private static String[] mujer = { "Isabella", "Olivia", "Alexis", "Sofía", "Victoria", "Amelia", "Alexa", "Julia",
             "Camila", "Alexandra", "Maya", "Andrea", "Ariana", "María", "Eva", "Angelina", "Valeria", "Natalia",
             "Isabel", "Sara", "Liliana", "Adriana", "Juliana", "Gabriela", "Daniela", "Valentina", "Lila", "Vivian",
@@ -62,8 +97,8 @@ public class GeneradorNombres {
                 nombre1 = mujer[StdRandom.uniform(mujer.length)];
                 nombre2 = mujer[StdRandom.uniform(mujer.length)];
             } else {
-                nombre1 = mujer[StdRandom.uniform(hombre.length)];
-                nombre2 = mujer[StdRandom.uniform(hombre.length)];
+                nombre1 = hombre[StdRandom.uniform(hombre.length)];
+                nombre2 = hombre[StdRandom.uniform(hombre.length)];
             }
             String apellido1 = apellidos[StdRandom.uniform(apellidos.length)];
             String apellido2 = apellidos[StdRandom.uniform(apellidos.length)];
@@ -72,11 +107,146 @@ public class GeneradorNombres {
         return nombres;
     }
 
-    public static void main(String[] args) {
+    // Un nombre completo con el generador del bloque
+    private static String nombre(SplittableRandom rnd, StringBuilder sb) {
+        sb.setLength(0);
+        String[] nombres = rnd.nextBoolean() ? mujer : hombre;
+        sb.append(nombres[rnd.nextInt(nombres.length)]).append(' ');
+        sb.append(nombres[rnd.nextInt(nombres.length)]).append(' ');
+        sb.append(apellidos[rnd.nextInt(apellidos.length)]).append(' ');
+        sb.append(apellidos[rnd.nextInt(apellidos.length)]);
+        return sb.toString();
+    }
+
+    // Generador del bloque b: no depende del orden en que se generan los bloques
+    private static SplittableRandom bloque(long seed, long b) {
+        return new SplittableRandom(new SplittableRandom(seed + b * GOLDEN_GAMMA).nextLong());
+    }
+
+    /**
+     * Nombres 0..n-1 de la semilla, divisible en bloques para streams paralelos
+     */
+    public static Spliterator<String> spliterator(long n, long seed) {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be non-negative");
+        return new Nombres(seed, 0, n, null);
+    }
+
+    public static Stream<String> stream(long n, long seed, boolean parallel) {
+        return StreamSupport.stream(spliterator(n, seed), parallel);
+    }
+
+    private static final class Nombres implements Spliterator<String> {
+        private final long seed;
+        private long index;
+        private final long end;
+        private SplittableRandom rnd;       // generador del bloque de index, null al inicio de un bloque
+        private final StringBuilder sb = new StringBuilder();
+
+        Nombres(long seed, long index, long end, SplittableRandom rnd) {
+            this.seed = seed;
+            this.index = index;
+            this.end = end;
+            this.rnd = rnd;
+        }
+
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (index >= end)
+                return false;
+            if (index % BLOCK == 0 || rnd == null)
+                rnd = bloque(seed, index / BLOCK);
+            index++;
+            action.accept(nombre(rnd, sb));
+            return true;
+        }
+
+        // Divide en un limite de bloque; el prefijo sigue con el generador actual
+        public Spliterator<String> trySplit() {
+            long mid = (index + end) / 2 / BLOCK * BLOCK;
+            if (mid <= index)
+                return null;
+            Spliterator<String> prefix = new Nombres(seed, index, mid, rnd);
+            index = mid;
+            rnd = null;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return end - index;
+        }
+
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+    }
+
+    // Los nombres del bloque b, una linea por nombre, en UTF-8
+    private static byte[] lineas(long seed, long b, long n) {
+        SplittableRandom rnd = bloque(seed, b);
+        StringBuilder sb = new StringBuilder(), out = new StringBuilder();
+        for (long i = b * BLOCK, end = Math.min(n, i + BLOCK); i < end; i++)
+            out.append(nombre(rnd, sb)).append('\n');
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escribe los nombres 0..n-1 de la semilla en el archivo, una linea por
+     * nombre. Los bloques se generan en paralelo y se escriben en orden; a
+     * lo sumo 2 * threads bloques estan en memoria.
+     */
+    public static void escribir(Path file, long n, long seed, int threads) {
+        if (n < 0 || threads < 1)
+            throw new IllegalArgumentException("n must be non-negative and threads positive");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long blocks = (n + BLOCK - 1) / BLOCK;
+            Deque<Future<byte[]>> pending = new ArrayDeque<>();
+            for (long b = 0; b < blocks || !pending.isEmpty();) {
+                while (b < blocks && pending.size() < 2 * threads) {
+                    long block = b++;
+                    pending.add(pool.submit(() -> lineas(seed, block, n)));
+                }
+                out.write(pending.poll().get());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing " + file, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error writing " + file, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
         // arrayFromInput();
         String[] nombres = generar(10);
         for (String n : nombres)
             StdOut.println(n);
+
+        long n = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = 42;
+
+        // La salida depende solo de la semilla: secuencial, paralela y archivo dan lo mismo
+        List<String> secuencial = stream(300_000, seed, false).collect(Collectors.toList());
+        List<String> paralelo = stream(300_000, seed, true).collect(Collectors.toList());
+        assert secuencial.equals(paralelo);
+        Path tmp = Files.createTempFile("nombres", ".txt");
+        try {
+            escribir(tmp, 300_000, seed, 3);
+            assert Files.readAllLines(tmp, StandardCharsets.UTF_8).equals(secuencial);
+
+            Path file = Paths.get(args.length > 2 ? args[2] : tmp.toString());
+            Stopwatch sw = new Stopwatch();
+            escribir(file, n, seed, threads);
+            StdOut.printf("%d nombres, %d hilos: %.1f MB en %.3f s%n", n, threads, Files.size(file) / 1e6,
+                    sw.elapsedTime());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
     }
 
 }
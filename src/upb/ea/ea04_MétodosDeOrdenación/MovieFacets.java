@@ -0,0 +1,376 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.ea04_MétodosDeOrdenación.MovieTable.Field;
+import upb.ea.ea04_MétodosDeOrdenación.MovieTable.ListColumn;
+import upb.ea.util.TopK;
+
+/**
+ * Indices secundarios de una MovieTable para consultas por facetas.
+ *
+ * Los campos con pocos valores (genero, pais, idioma) y la decada tienen un
+ * mapa de bits por valor, con un bit por fila en un long[]. Un filtro es un
+ * mapa de bits y se combina con and/or palabra por palabra; el conteo de una
+ * faceta es un and seguido de Long.bitCount, 64 filas por operacion, sin
+ * recorrer las filas.
+ *
+ * Los campos con muchos valores (director, guionista, actores) tendrian un
+ * mapa de bits casi vacio por valor, asi que tienen listas de filas: las
+ * filas de cada valor ordenadas por votos de mayor a menor, con la suma
+ * acumulada de avg_vote. Las peliculas de un valor con al menos N votos son
+ * un prefijo de su lista (busqueda binaria) y su promedio sale de las sumas,
+ * por lo que el ranking de directores no toca las filas.
+ *
+ * Los indices no se actualizan si la tabla cambia.
+ */
+public class MovieFacets {
+
+    /**
+     * Promedio de avg_vote de las peliculas de un valor
+     */
+    public static class Score {
+        public final String value;
+        public final int movies;
+        public final double average;
+
+        Score(String value, int movies, double average) {
+            this.value = value;
+            this.movies = movies;
+            this.average = average;
+        }
+
+        public String toString() {
+            return String.format("%-30s %5d peliculas, promedio %.2f", value, movies, average);
+        }
+    }
+
+    /**
+     * Filas de cada valor de un campo ordenadas por votos, de mayor a menor
+     */
+    private static class Postings {
+        final int[] start;          // filas del valor c: rows[start[c] .. start[c+1])
+        final int[] rows;
+        final int[] votes;          // votos de cada fila de rows
+        final double[] prefix;      // prefix[p] = suma de avg_vote de rows[0 .. p)
+
+        // byVotes: las filas de t por votos descendentes
+        Postings(MovieTable t, ListColumn l, int[] byVotes) {
+            int values = l.dict.size();
+            start = new int[values + 1];
+            for (int k = 0; k < l.size; k++)
+                start[l.codes[k] + 1]++;
+            for (int c = 0; c < values; c++)
+                start[c + 1] += start[c];
+            rows = new int[start[values]];
+            int[] next = Arrays.copyOf(start, values);
+            // recorrer las filas por votos descendentes deja cada lista ordenada
+            for (int i : byVotes)
+                for (int k = l.start[i]; k < l.start[i + 1]; k++)
+                    rows[next[l.codes[k]]++] = i;
+            votes = new int[rows.length];
+            prefix = new double[rows.length + 1];
+            for (int p = 0; p < rows.length; p++) {
+                votes[p] = t.votes[rows[p]];
+                prefix[p + 1] = prefix[p] + t.avgVote[rows[p]];
+            }
+        }
+
+        // Numero de filas del valor c con al menos min votos
+        int atLeast(int c, int min) {
+            int lo = start[c], hi = start[c + 1];
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (votes[mid] >= min)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo - start[c];
+        }
+    }
+
+    private static final Field[] BITMAP_FIELDS = { Field.GENRE, Field.COUNTRY, Field.LANGUAGE };
+    private static final Field[] POSTING_FIELDS = { Field.DIRECTOR, Field.WRITER, Field.ACTORS };
+
+    private final MovieTable table;
+    private final int words;
+    private final long[][][] bitmaps = new long[Field.values().length][][];
+    private final Postings[] postings = new Postings[Field.values().length];
+    private final int[] decades;        // primer año de cada decada, ascendente
+    private final long[][] byDecade;
+    private final int[] byVotes;        // filas por votos descendentes
+
+    public MovieFacets(MovieTable table) {
+        this.table = table;
+        int n = table.size();
+        words = (n + 63) >>> 6;
+        for (Field f : BITMAP_FIELDS) {
+            ListColumn l = table.lists[f.ordinal()];
+            long[][] b = new long[l.dict.size()][words];
+            for (int i = 0; i < n; i++)
+                for (int k = l.start[i]; k < l.start[i + 1]; k++)
+                    b[l.codes[k]][i >>> 6] |= 1L << i;
+            bitmaps[f.ordinal()] = b;
+        }
+
+        int[] decade = new int[n];
+        for (int i = 0; i < n; i++)
+            decade[i] = Math.floorDiv(table.year[i], 10) * 10;
+        decades = Arrays.stream(decade).distinct().sorted().toArray();
+        byDecade = new long[decades.length][words];
+        for (int i = 0; i < n; i++)
+            byDecade[Arrays.binarySearch(decades, decade[i])][i >>> 6] |= 1L << i;
+
+        byVotes = byVotes(table);
+        for (Field f : POSTING_FIELDS)
+            postings[f.ordinal()] = new Postings(table, table.lists[f.ordinal()], byVotes);
+    }
+
+    // Filas ordenadas por votos de mayor a menor; a igual numero de votos, por fila
+    private static int[] byVotes(MovieTable t) {
+        long[] keys = new long[t.size()];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = (long) (Integer.MAX_VALUE - t.votes[i]) << 32 | i;
+        Arrays.sort(keys);
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            rows[i] = (int) keys[i];
+        return rows;
+    }
+
+    private long[][] bitmaps(Field f) {
+        long[][] b = bitmaps[f.ordinal()];
+        if (b == null)
+            throw new IllegalArgumentException("No bitmap index for " + f);
+        return b;
+    }
+
+    private Postings postings(Field f) {
+        Postings p = postings[f.ordinal()];
+        if (p == null)
+            throw new IllegalArgumentException("No posting index for " + f);
+        return p;
+    }
+
+
+    /** Mapa de bits con todas las filas */
+    public long[] all() {
+        long[] b = new long[words];
+        Arrays.fill(b, -1L);
+        int n = table.size();
+        if ((n & 63) != 0)
+            b[words - 1] = (1L << n) - 1;
+        return b;
+    }
+
+    /** Filas que tienen alguno de los valores en el campo (genero, pais o idioma) */
+    public long[] any(Field f, String... values) {
+        long[][] b = bitmaps(f);
+        long[] result = new long[words];
+        for (String v : values) {
+            int c = table.dictionary(f).code(v);
+            if (c >= 0)
+                orInto(result, b[c]);
+        }
+        return result;
+    }
+
+    /** Filas de la decada que contiene el año */
+    public long[] decade(int year) {
+        int d = Arrays.binarySearch(decades, Math.floorDiv(year, 10) * 10);
+        return d < 0 ? new long[words] : byDecade[d].clone();
+    }
+
+    /** Filas con al menos min votos */
+    public long[] votesAtLeast(int min) {
+        long[] result = new long[words];
+        for (int i : byVotes) {
+            if (table.votes[i] < min)
+                break;
+            result[i >>> 6] |= 1L << i;
+        }
+        return result;
+    }
+
+    /** Primer año de cada decada con peliculas, ascendente */
+    public int[] decades() {
+        return decades.clone();
+    }
+
+    public static long[] and(long[] a, long[] b) {
+        long[] c = a.clone();
+        for (int w = 0; w < c.length; w++)
+            c[w] &= b[w];
+        return c;
+    }
+
+    public static long[] or(long[] a, long[] b) {
+        long[] c = a.clone();
+        orInto(c, b);
+        return c;
+    }
+
+    private static void orInto(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++)
+            a[w] |= b[w];
+    }
+
+    /** Numero de filas del mapa de bits */
+    public static int count(long[] bits) {
+        int c = 0;
+        for (long w : bits)
+            c += Long.bitCount(w);
+        return c;
+    }
+
+    private static int countAnd(long[] a, long[] b, long[] c) {
+        int count = 0;
+        for (int w = 0; w < a.length; w++)
+            count += Long.bitCount(a[w] & b[w] & c[w]);
+        return count;
+    }
+
+    /** Filas del mapa de bits, ascendentes */
+    public static int[] rows(long[] bits) {
+        int[] rows = new int[count(bits)];
+        int m = 0;
+        for (int w = 0; w < bits.length; w++)
+            for (long x = bits[w]; x != 0; x &= x - 1)
+                rows[m++] = (w << 6) + Long.numberOfTrailingZeros(x);
+        return rows;
+    }
+
+    /**
+     * Numero de peliculas del filtro por valor del campo y por decada
+     * @return counts[c][d], c es el codigo del valor y d el indice en decades()
+     */
+    public int[][] countByDecade(Field f, long[] filter) {
+        long[][] b = bitmaps(f);
+        int[][] counts = new int[b.length][decades.length];
+        for (int c = 0; c < b.length; c++)
+            for (int d = 0; d < decades.length; d++)
+                counts[c][d] = countAnd(b[c], byDecade[d], filter);
+        return counts;
+    }
+
+    /** Filas que tienen el valor en el campo (director, guionista o actores), por votos descendentes */
+    public int[] moviesWith(Field f, String value) {
+        Postings p = postings(f);
+        int c = table.dictionary(f).code(value);
+        return c < 0 ? new int[0] : Arrays.copyOfRange(p.rows, p.start[c], p.start[c + 1]);
+    }
+
+    /**
+     * Los k valores del campo con mejor promedio de avg_vote, contando solo
+     * las peliculas con al menos minVotes votos y exigiendo al menos
+     * minMovies de ellas; a igual promedio gana el valor con menor codigo
+     */
+    public List<Score> top(Field f, int k, int minVotes, int minMovies) {
+        Postings p = postings(f);
+        int values = p.start.length - 1;
+        TopK top = new TopK(k);
+        for (int c = 0; c < values; c++) {
+            int m = p.atLeast(c, minVotes);
+            if (m >= Math.max(1, minMovies))
+                top.offer(c, (p.prefix[p.start[c] + m] - p.prefix[p.start[c]]) / m);
+        }
+        List<Score> result = new ArrayList<>();
+        for (int c : top.top()) {
+            int m = p.atLeast(c, minVotes);
+            result.add(new Score(table.dictionary(f).decode(c), m,
+                    (p.prefix[p.start[c] + m] - p.prefix[p.start[c]]) / m));
+        }
+        return result;
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "IMDb movies.csv";
+        int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        MovieTable table = MovieTable.load(filename);
+        int n = table.size();
+
+        Stopwatch sw = new Stopwatch();
+        MovieFacets facets = new MovieFacets(table);
+        StdOut.printf("%d peliculas, indices en %.3f s%n", n, sw.elapsedTime());
+
+        // Peliculas por genero y decada: recorriendo las filas y con los mapas de bits
+        int[] decades = facets.decades();
+        int genres = table.dictionary(Field.GENRE).size();
+        long t0 = System.nanoTime();
+        int[][] scan = null;
+        for (int r = 0; r < repeat; r++) {
+            scan = new int[genres][decades.length];
+            for (int i = 0; i < n; i++) {
+                int d = Arrays.binarySearch(decades, Math.floorDiv(table.year(i), 10) * 10);
+                for (int g : table.codes(Field.GENRE, i))
+                    scan[g][d]++;
+            }
+        }
+        long t1 = System.nanoTime();
+        int[][] bits = null;
+        long[] all = facets.all();
+        for (int r = 0; r < repeat; r++)
+            bits = facets.countByDecade(Field.GENRE, all);
+        long t2 = System.nanoTime();
+        assert Arrays.deepEquals(scan, bits);
+
+        // Directores con mejor promedio, contando peliculas con al menos minVotes votos
+        int minVotes = 10_000, minMovies = 3, k = 10;
+        List<Score> top = null;
+        for (int r = 0; r < repeat; r++)
+            top = facets.top(Field.DIRECTOR, k, minVotes, minMovies);
+        long t3 = System.nanoTime();
+        int directors = table.dictionary(Field.DIRECTOR).size();
+        TopK expected = null;
+        double[] average = new double[directors];
+        for (int r = 0; r < repeat; r++) {
+            double[] sum = new double[directors];
+            int[] movies = new int[directors];
+            for (int i = 0; i < n; i++) {
+                if (table.votes(i) < minVotes)
+                    continue;
+                for (int c : table.codes(Field.DIRECTOR, i)) {
+                    sum[c] += table.avgVote(i);
+                    movies[c]++;
+                }
+            }
+            expected = new TopK(k);
+            for (int c = 0; c < directors; c++) {
+                average[c] = sum[c] / movies[c];
+                if (movies[c] >= minMovies)
+                    expected.offer(c, average[c]);
+            }
+        }
+        long t4 = System.nanoTime();
+        int[] codes = expected.top();
+        assert codes.length == top.size();
+        // las sumas se hacen en otro orden: comparar los promedios, no los empates
+        for (int i = 0; i < codes.length; i++)
+            assert Math.abs(average[codes[i]] - top.get(i).average) < 1e-9;
+
+        // Filtros combinados
+        long[] dramaUsa = and(facets.any(Field.GENRE, "Drama"), facets.any(Field.COUNTRY, "USA"));
+        long[] popular = and(dramaUsa, facets.votesAtLeast(minVotes));
+        int check = 0;
+        for (int i = 0; i < n; i++)
+            if (Arrays.asList(table.values(Field.GENRE, i)).contains("Drama")
+                    && Arrays.asList(table.values(Field.COUNTRY, i)).contains("USA") && table.votes(i) >= minVotes)
+                check++;
+        assert count(popular) == check && rows(popular).length == check;
+
+        StdOut.printf("Genero x decada : recorrido %9.1f us, mapas de bits %9.1f us%n",
+                (t1 - t0) / 1e3 / repeat, (t2 - t1) / 1e3 / repeat);
+        StdOut.printf("Top directores  : recorrido %9.1f us, listas       %9.1f us%n",
+                (t4 - t3) / 1e3 / repeat, (t3 - t2) / 1e3 / repeat);
+        StdOut.printf("Drama y USA con al menos %d votos: %d peliculas%n", minVotes, count(popular));
+        for (Score s : top)
+            StdOut.println(s);
+    }
+
+}
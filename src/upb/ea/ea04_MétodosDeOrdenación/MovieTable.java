@@ -0,0 +1,375 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.FileChunks;
+import upb.ea.util.StringDictionary;
+
+/**
+ * Tabla columnar con las peliculas del archivo de IMDb.
+ *
+ * En lugar de un objeto Pelicula por fila, cada columna es un arreglo:
+ * <ul>
+ * <li>año, duracion, votos y promedio de votos en arreglos primitivos</li>
+ * <li>la fecha de publicacion como dias desde 1970-01-01</li>
+ * <li>la productora codificada con un diccionario</li>
+ * <li>los campos con varios valores separados por comas (genero, pais,
+ *     idioma, director, guionista y actores) como listas de codigos: los
+ *     codigos de la fila i son codes[start[i] .. start[i+1]), y cada nombre
+ *     se guarda una sola vez en el diccionario de la columna</li>
+ * </ul>
+ * La descripcion y los campos de dinero y criticas no se guardan.
+ *
+ * La carga en paralelo divide el archivo en bloques de lineas completas;
+ * cada hilo llena una tabla parcial con sus propios diccionarios y al final
+ * las tablas se concatenan en el orden del archivo, traduciendo los codigos
+ * con StringDictionary.merge. Las consultas se hacen sobre las columnas,
+ * sin volver a leer el archivo.
+ */
+public class MovieTable {
+
+    /** Campos con varios valores separados por comas */
+    public enum Field {
+        GENRE, COUNTRY, LANGUAGE, DIRECTOR, WRITER, ACTORS
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int[] CSV_COLUMN = { 5, 7, 8, 9, 10, 12 };
+
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Columna con una lista de valores por fila
+     */
+    static final class ListColumn {
+        final StringDictionary dict;
+        int[] start = new int[1];
+        int[] codes = new int[16];
+        int size;                   // codigos usados
+
+        ListColumn(StringDictionary dict) {
+            this.dict = dict;
+        }
+
+        void resize(int rows) {
+            start = Arrays.copyOf(start, rows + 1);
+        }
+
+        // Agrega los valores del campo como la fila row (la siguiente)
+        void add(int row, String field) {
+            int from = 0;
+            while (from < field.length()) {
+                int to = field.indexOf(',', from);
+                if (to < 0)
+                    to = field.length();
+                String value = field.substring(from, to).trim();
+                if (!value.isEmpty()) {
+                    if (size == codes.length)
+                        codes = Arrays.copyOf(codes, 2 * size);
+                    codes[size++] = dict.encode(value);
+                }
+                from = to + 1;
+            }
+            start[row + 1] = size;
+        }
+
+        // Agrega las filas de other a partir de la fila row
+        void append(int row, ListColumn other, int rows) {
+            int[] map = dict.merge(other.dict);
+            if (size + other.size > codes.length)
+                codes = Arrays.copyOf(codes, Math.max(2 * codes.length, size + other.size));
+            for (int k = 0; k < other.size; k++)
+                codes[size + k] = map[other.codes[k]];
+            for (int i = 1; i <= rows; i++)
+                start[row + i] = size + other.start[i];
+            size += other.size;
+        }
+    }
+
+    int n;
+    int[] titleId;                  // digitos de imdb_title_id
+    String[] title;
+    short[] year;
+    int[] datePublished;            // dias desde 1970-01-01
+    short[] duration;
+    float[] avgVote;
+    int[] votes;
+    int[] company;
+    final StringDictionary companies = new StringDictionary();
+    final ListColumn[] lists = new ListColumn[FIELDS.length];
+
+    public MovieTable() {
+        this(1024);
+    }
+
+    public MovieTable(int capacity) {
+        for (int f = 0; f < FIELDS.length; f++)
+            lists[f] = new ListColumn(new StringDictionary());
+        resize(Math.max(capacity, 1));
+    }
+
+    private void resize(int capacity) {
+        titleId = Arrays.copyOf(titleId == null ? new int[0] : titleId, capacity);
+        title = Arrays.copyOf(title == null ? new String[0] : title, capacity);
+        year = Arrays.copyOf(year == null ? new short[0] : year, capacity);
+        datePublished = Arrays.copyOf(datePublished == null ? new int[0] : datePublished, capacity);
+        duration = Arrays.copyOf(duration == null ? new short[0] : duration, capacity);
+        avgVote = Arrays.copyOf(avgVote == null ? new float[0] : avgVote, capacity);
+        votes = Arrays.copyOf(votes == null ? new int[0] : votes, capacity);
+        company = Arrays.copyOf(company == null ? new int[0] : company, capacity);
+        for (ListColumn l : lists)
+            l.resize(capacity);
+    }
+
+    /** Libera la capacidad no usada de las columnas */
+    public void trimToSize() {
+        if (n < titleId.length)
+            resize(Math.max(n, 1));
+    }
+
+    // Numero de imdb_title_id, "tt0000009" es 9
+    private static int parseTitleId(CsvTokenizer tok, int i) {
+        int from = tok.start(i), to = tok.end(i);
+        if (to - from < 3 || tok.charAt(from) != 't' || tok.charAt(from + 1) != 't')
+            throw new NumberFormatException("Invalid id: " + tok.field(i));
+        int v = 0;
+        for (int p = from + 2; p < to; p++) {
+            char c = tok.charAt(p);
+            if (c < '0' || c > '9')
+                throw new NumberFormatException("Invalid id: " + tok.field(i));
+            v = 10 * v + c - '0';
+        }
+        return v;
+    }
+
+    /**
+     * Agrega el registro actual del tokenizador, con las columnas del archivo
+     * de IMDb
+     * @throws NumberFormatException si un campo numerico no es valido
+     * @throws DateTimeParseException si la fecha no es valida
+     */
+    void add(CsvTokenizer tok) {
+        // primero los campos que pueden fallar, para no dejar una fila a medias
+        int id = parseTitleId(tok, 0);
+        int y = tok.parseInt(3);
+        int date = ParsingImdb.parseDate(tok, 4);
+        int d = tok.parseInt(6);
+        float vote = tok.parseFloat(14);
+        int v = tok.parseInt(15);
+        if (n == titleId.length)
+            resize(2 * n);
+        int i = n++;
+        titleId[i] = id;
+        title[i] = tok.field(1);
+        year[i] = (short) y;
+        datePublished[i] = date;
+        duration[i] = (short) d;
+        avgVote[i] = vote;
+        votes[i] = v;
+        company[i] = companies.encode(tok.field(11));
+        for (int f = 0; f < FIELDS.length; f++)
+            lists[f].add(i, tok.field(CSV_COLUMN[f]));
+    }
+
+    // Agrega al final las filas de otra tabla
+    private void append(MovieTable t) {
+        if (n + t.n > titleId.length)
+            resize(Math.max(2 * titleId.length, n + t.n));
+        System.arraycopy(t.titleId, 0, titleId, n, t.n);
+        System.arraycopy(t.title, 0, title, n, t.n);
+        System.arraycopy(t.year, 0, year, n, t.n);
+        System.arraycopy(t.datePublished, 0, datePublished, n, t.n);
+        System.arraycopy(t.duration, 0, duration, n, t.n);
+        System.arraycopy(t.avgVote, 0, avgVote, n, t.n);
+        System.arraycopy(t.votes, 0, votes, n, t.n);
+        int[] map = companies.merge(t.companies);
+        for (int i = 0; i < t.n; i++)
+            company[n + i] = map[t.company[i]];
+        for (int f = 0; f < FIELDS.length; f++)
+            lists[f].append(n, t.lists[f], t.n);
+        n += t.n;
+    }
+
+
+    public static MovieTable load(String filename) {
+        return load(filename, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Carga el archivo con varios hilos
+     * @param filename archivo CSV con una linea de encabezado
+     * @param threads numero de hilos
+     * @param chunkSize numero aproximado de bytes por tarea
+     */
+    public static MovieTable load(String filename, int threads, int chunkSize) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MovieTable table = new MovieTable();
+            for (MovieTable t : FileChunks.parallel(ch, chunkSize, threads, MovieTable::parseChunk))
+                table.append(t);
+            table.trimToSize();
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lee las lineas en [from, to) del archivo
+    private static MovieTable parseChunk(FileChannel ch, long from, long to) throws IOException {
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        MovieTable t = new MovieTable();
+        CsvTokenizer tok = new CsvTokenizer();
+        tok.reset(buf, 0, buf.limit());
+        while (tok.next()) {
+            if (tok.fieldCount() == 1 && tok.isEmpty(0))
+                continue;           // linea en blanco
+            try {
+                t.add(tok);
+            } catch (NumberFormatException | DateTimeParseException | IndexOutOfBoundsException e) {
+                StdOut.println("ERROR: registro en el byte " + (from + tok.recordStart()));
+            }
+        }
+        return t;
+    }
+
+
+    public int size() {
+        return n;
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= n)
+            throw new IndexOutOfBoundsException("Row " + row + " of a table with " + n + " rows");
+        return row;
+    }
+
+    public String    imdbTitleId(int row)   { return String.format("tt%07d", titleId[check(row)]); }
+    public String    title(int row)         { return title[check(row)]; }
+    public int       year(int row)          { return year[check(row)]; }
+    public LocalDate datePublished(int row) { return LocalDate.ofEpochDay(datePublished[check(row)]); }
+    public int       duration(int row)      { return duration[check(row)]; }
+    public float     avgVote(int row)       { return avgVote[check(row)]; }
+    public int       votes(int row)         { return votes[check(row)]; }
+    public String    productionCompany(int row) { return companies.decode(company[check(row)]); }
+
+    /** Diccionario de los valores del campo */
+    public StringDictionary dictionary(Field f) {
+        return lists[f.ordinal()].dict;
+    }
+
+    /** Codigos de los valores del campo en la fila */
+    public int[] codes(Field f, int row) {
+        ListColumn l = lists[f.ordinal()];
+        return Arrays.copyOfRange(l.codes, l.start[check(row)], l.start[row + 1]);
+    }
+
+    /** Valores del campo en la fila */
+    public String[] values(Field f, int row) {
+        int[] codes = codes(f, row);
+        String[] values = new String[codes.length];
+        for (int k = 0; k < codes.length; k++)
+            values[k] = dictionary(f).decode(codes[k]);
+        return values;
+    }
+
+    /** Numero de peliculas de cada valor del campo, indexado por codigo */
+    public int[] countByValue(Field f) {
+        ListColumn l = lists[f.ordinal()];
+        int[] count = new int[l.dict.size()];
+        for (int k = 0; k < l.size; k++)
+            count[l.codes[k]]++;
+        return count;
+    }
+
+    /** Filas que tienen el valor en el campo, en orden */
+    public int[] rowsWith(Field f, String value) {
+        ListColumn l = lists[f.ordinal()];
+        int code = l.dict.code(value);
+        if (code < 0)
+            return new int[0];
+        int[] rows = new int[16];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            for (int k = l.start[i]; k < l.start[i + 1]; k++) {
+                if (l.codes[k] == code) {
+                    if (m == rows.length)
+                        rows = Arrays.copyOf(rows, 2 * m);
+                    rows[m++] = i;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(rows, m);
+    }
+
+    /** Promedio de avg_vote de las filas, NaN si no hay filas */
+    public double averageVote(int[] rows) {
+        double sum = 0;
+        for (int i : rows)
+            sum += avgVote[check(i)];
+        return rows.length == 0 ? Double.NaN : sum / rows.length;
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "IMDb movies.csv";
+
+        Stopwatch sw = new Stopwatch();
+        MovieTable sequential = load(filename, 1, Integer.MAX_VALUE);
+        StdOut.printf("1 hilo, 1 bloque: %d peliculas %8.3f s%n", sequential.size(), sw.elapsedTime());
+        int cores = Runtime.getRuntime().availableProcessors();
+        MovieTable table = null;
+        for (int threads = 1; threads <= Math.max(2, cores); threads *= 2) {
+            sw = new Stopwatch();
+            table = load(filename, threads, 1024 * 1024);
+            StdOut.printf("%d hilos        : %d peliculas %8.3f s%n", threads, table.size(), sw.elapsedTime());
+        }
+
+        // Los bloques no cambian el resultado
+        assert table.size() == sequential.size();
+        for (int i = 0; i < table.size(); i++) {
+            assert table.imdbTitleId(i).equals(sequential.imdbTitleId(i));
+            assert table.votes(i) == sequential.votes(i) && table.datePublished(i).equals(sequential.datePublished(i));
+            assert table.productionCompany(i).equals(sequential.productionCompany(i));
+            for (Field f : FIELDS)
+                assert Arrays.equals(table.values(f, i), sequential.values(f, i));
+        }
+
+        if (table.size() == 0) {
+            StdOut.println("No se cargo ninguna pelicula de " + filename);
+            return;
+        }
+
+        // Consultas sobre las columnas, sin volver a leer el archivo
+        sw = new Stopwatch();
+        StringDictionary genres = table.dictionary(Field.GENRE);
+        int[] count = table.countByValue(Field.GENRE);
+        StdOut.println("Peliculas por genero:");
+        for (int g = 0; g < genres.size(); g++)
+            StdOut.printf("  %-12s %6d, promedio %.2f%n", genres.decode(g), count[g],
+                    table.averageVote(table.rowsWith(Field.GENRE, genres.decode(g))));
+        // Actores de la primera pelicula que los tenga
+        for (int i = 0; i < table.size(); i++) {
+            String[] actors = table.values(Field.ACTORS, i);
+            if (actors.length == 0)
+                continue;
+            int[] rows = table.rowsWith(Field.ACTORS, actors[0]);
+            StdOut.printf("%s: %d peliculas, promedio %.2f%n", actors[0], rows.length, table.averageVote(rows));
+            break;
+        }
+        StdOut.printf("Consultas: %.3f s%n", sw.elapsedTime());
+    }
+
+}
@@ -1,13 +1,41 @@
 package upb.ea.ea04_MétodosDeOrdenación;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 import edu.princeton.cs.algs4.StdOut;
+import upb.ea.util.KeyComparator;
+import upb.ea.util.Sorting;
 
 public class OrdenarADTs {
 
+    private static void imprimir(String titulo, List<Person> personas, Comparator<Person> orden) {
+        List<Person> copia = new ArrayList<>(personas);
+        copia.sort(orden);
+        StdOut.println(titulo);
+        for (Person p : copia)
+            StdOut.println("  " + p);
+    }
+
+    // Los tres ordenamientos son estables: deben dar la misma lista
+    private static void comparar(String orden, List<Person> personas, Comparator<Person> jdk,
+            KeyComparator<Person> key, int trials) {
+        List<Person> expected = new ArrayList<>(personas);
+        expected.sort(jdk);
+        List<Person> porClaves = new ArrayList<>(personas);
+        key.sortByKeys(porClaves);
+        assert expected.equals(porClaves);
+
+        double tj = Sorting.medianTime(() -> new ArrayList<>(personas), a -> a.sort(jdk), trials);
+        double tk = Sorting.medianTime(() -> new ArrayList<>(personas), a -> a.sort(key), trials);
+        double tc = Sorting.medianTime(() -> new ArrayList<>(personas), key::sortByKeys, trials);
+        StdOut.printf("%18s %12.3f %12.3f %12.3f%n", orden, tj, tk, tc);
+    }
+
     public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 5;
 
         List<Person> personas = GeneradorADTs.generar(10);
         for (Person p : personas)
@@ -17,15 +45,31 @@ public class OrdenarADTs {
         StdOut.println("persona[0] < persona[1] ? " + personas.get(0).compareTo(personas.get(1)));
 
         // Uso de la interfaz Comparator        
-        Comparator<Person> compEdad = (p1, p2) -> { return p1.getEdad()-p2.getEdad(); };
+        // (restar las edades puede desbordar con valores grandes; Integer.compare no)
+        Comparator<Person> compEdad = (p1, p2) -> Integer.compare(p1.getEdad(), p2.getEdad());
         StdOut.println( compEdad.compare(personas.get(0), personas.get(1)) );
 
 
         // Ejercicios
         // 1. Ordenar por apellido y nombre ascendiente
+        imprimir("Por apellido y nombre:", personas, Person.POR_APELLIDO_NOMBRE);
         // 2. Ordenar por edad ascendiente
+        imprimir("Por edad:", personas, Person.POR_EDAD);
         // 3. Ordenar por peso descendiente
+        imprimir("Por peso descendiente:", personas, Person.POR_PESO_DESC);
         // 4. Ordenar por edad y peso
+        imprimir("Por edad y peso:", personas, Person.POR_EDAD_PESO);
+
+        // Comparator.comparing(...).thenComparing(...) contra KeyComparator y sus claves precalculadas
+        List<Person> muchas = GeneradorADTs.generar(n);
+        Comparator<Person> jdkNombre = Comparator.comparing(Person::getApellidos).thenComparing(Person::getNombres);
+        Comparator<Person> jdkEdadPeso = Comparator.comparing(Person::getEdad).thenComparing(Person::getPeso);
+        Comparator<Person> jdkPesoDesc = Comparator.comparing(Person::getPeso).reversed();
+        StdOut.printf("%n%d personas, mediana de %d%n", n, trials);
+        StdOut.printf("%18s %12s %12s %12s%n", "orden", "comparing", "KeyComp", "claves");
+        comparar("apellido, nombre", muchas, jdkNombre, Person.POR_APELLIDO_NOMBRE, trials);
+        comparar("edad, peso", muchas, jdkEdadPeso, Person.POR_EDAD_PESO, trials);
+        comparar("peso desc", muchas, jdkPesoDesc, Person.POR_PESO_DESC, trials);
     
         // Medición de tiempos y comparación, para N grandes
         // 1. Generar un arreglo de tamaño N
@@ -0,0 +1,334 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.princeton.cs.algs4.StdOut;
+import upb.ea.util.Sorting;
+
+/**
+ * Mergesort y quicksort en paralelo con fork/join, para cualquier tipo con
+ * un Comparator (por ejemplo Person).
+ *
+ * Mergesort: las dos mitades se ordenan como tareas separadas y la mezcla
+ * tambien se divide: se toma el elemento del medio de la corrida mas larga,
+ * se busca su posicion en la otra con busqueda binaria y las dos partes se
+ * mezclan en paralelo. Hay un solo arreglo auxiliar para todo el
+ * ordenamiento, los subarreglos pequeños se ordenan por insercion y la
+ * mezcla se omite si las mitades ya estan en orden. Es estable.
+ *
+ * Quicksort: particion en tres partes (Dijkstra) con la mediana de tres
+ * como pivote, asi que las claves repetidas no lo vuelven cuadratico; las
+ * particiones son independientes y se ordenan como tareas separadas. No es
+ * estable.
+ *
+ * Las tareas corren en el ForkJoinPool que se pase (por defecto el comun),
+ * lo que permite medir con distinto numero de nucleos.
+ */
+public class ParallelSorts {
+
+    // Subarreglos de este tamaño o menos se ordenan por insercion
+    private static final int INSERTION_CUTOFF = 12;
+    // Subarreglos de este tamaño o menos no se dividen en mas tareas
+    private static final int SEQUENTIAL_CUTOFF = 8192;
+
+    private ParallelSorts() { }
+
+
+    /** Mergesort en paralelo en el pool comun */
+    public static <T> void mergeSort(T[] a, Comparator<? super T> c) {
+        mergeSort(a, c, ForkJoinPool.commonPool());
+    }
+
+    public static <T> void mergeSort(T[] a, Comparator<? super T> c, ForkJoinPool pool) {
+        @SuppressWarnings("unchecked")
+        T[] aux = (T[]) new Object[a.length];
+        pool.invoke(new MergeSortTask<>(a, aux, 0, a.length, c));
+    }
+
+    /** Ordena la lista con mergesort en paralelo, como List.sort */
+    public static <T> void mergeSort(List<T> list, Comparator<? super T> c) {
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) list.toArray();
+        mergeSort(a, c);
+        Sorting.copyBack(a, list);
+    }
+
+    /** Quicksort en tres partes en paralelo en el pool comun */
+    public static <T> void quickSort(T[] a, Comparator<? super T> c) {
+        quickSort(a, c, ForkJoinPool.commonPool());
+    }
+
+    public static <T> void quickSort(T[] a, Comparator<? super T> c, ForkJoinPool pool) {
+        pool.invoke(new QuickSortTask<>(a, 0, a.length, c));
+    }
+
+    public static <T> void quickSort(List<T> list, Comparator<? super T> c) {
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) list.toArray();
+        quickSort(a, c);
+        Sorting.copyBack(a, list);
+    }
+
+
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> c) {
+        for (int i = lo + 1; i < hi; i++) {
+            T t = a[i];
+            int j = i;
+            for (; j > lo && c.compare(t, a[j - 1]) < 0; j--)
+                a[j] = a[j - 1];
+            a[j] = t;
+        }
+    }
+
+    /**
+     * Ordena a[lo..hi) usando aux[lo..hi) para las mezclas
+     */
+    private static class MergeSortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] a, aux;
+        private final int lo, hi;
+        private final Comparator<? super T> c;
+
+        MergeSortTask(T[] a, T[] aux, int lo, int hi, Comparator<? super T> c) {
+            this.a = a;
+            this.aux = aux;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_CUTOFF) {
+                sort(a, aux, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new MergeSortTask<>(a, aux, lo, mid, c), new MergeSortTask<>(a, aux, mid, hi, c));
+            if (c.compare(a[mid - 1], a[mid]) <= 0)
+                return;
+            System.arraycopy(a, lo, aux, lo, hi - lo);
+            new MergeTask<>(aux, lo, mid, mid, hi, a, lo, c).compute();
+        }
+
+        // Mergesort secuencial de a[lo..hi)
+        static <T> void sort(T[] a, T[] aux, int lo, int hi, Comparator<? super T> c) {
+            if (hi - lo <= INSERTION_CUTOFF) {
+                insertionSort(a, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            sort(a, aux, lo, mid, c);
+            sort(a, aux, mid, hi, c);
+            if (c.compare(a[mid - 1], a[mid]) <= 0)
+                return;
+            System.arraycopy(a, lo, aux, lo, hi - lo);
+            merge(aux, lo, mid, mid, hi, a, lo, c);
+        }
+    }
+
+    // Mezcla src[lo1..hi1) y src[lo2..hi2) en dst desde out; a igualdad gana la primera corrida
+    private static <T> void merge(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out,
+            Comparator<? super T> c) {
+        int i = lo1, j = lo2, k = out;
+        while (i < hi1 && j < hi2)
+            dst[k++] = c.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+        while (i < hi1)
+            dst[k++] = src[i++];
+        while (j < hi2)
+            dst[k++] = src[j++];
+    }
+
+    // Primera posicion en src[lo..hi) con un elemento >= x (strict = false) o > x (strict = true)
+    private static <T> int search(T[] src, int lo, int hi, T x, boolean strict, Comparator<? super T> c) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = c.compare(src[mid], x);
+            if (cmp < 0 || (strict && cmp == 0))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Mezcla en paralelo de dos corridas ordenadas
+     */
+    private static class MergeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] src, dst;
+        private final int lo1, hi1, lo2, hi2, out;
+        private final Comparator<? super T> c;
+
+        MergeTask(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, Comparator<? super T> c) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1, n2 = hi2 - lo2;
+            if (n1 + n2 <= SEQUENTIAL_CUTOFF) {
+                merge(src, lo1, hi1, lo2, hi2, dst, out, c);
+                return;
+            }
+            // los iguales de la primera corrida van antes que los de la segunda
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = search(src, lo2, hi2, src[m1], false, c);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = search(src, lo1, hi1, src[m2], true, c);
+            }
+            int split = out + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new MergeTask<>(src, lo1, m1, lo2, m2, dst, out, c),
+                    new MergeTask<>(src, m1, hi1, m2, hi2, dst, split, c));
+        }
+    }
+
+
+    private static <T> void exch(T[] a, int i, int j) {
+        T t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // Posicion de la mediana de a[i], a[j], a[k]
+    private static <T> int median3(T[] a, int i, int j, int k, Comparator<? super T> c) {
+        return c.compare(a[i], a[j]) < 0
+                ? (c.compare(a[j], a[k]) < 0 ? j : c.compare(a[i], a[k]) < 0 ? k : i)
+                : (c.compare(a[k], a[j]) < 0 ? j : c.compare(a[k], a[i]) < 0 ? k : i);
+    }
+
+    /**
+     * Quicksort en tres partes de a[lo..hi)
+     */
+    private static class QuickSortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] a;
+        private final int lo, hi;
+        private final Comparator<? super T> c;
+
+        QuickSortTask(T[] a, int lo, int hi, Comparator<? super T> c) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            int lo = this.lo, hi = this.hi;
+            // la tarea sigue con una de las partes y entrega la otra al pool
+            List<QuickSortTask<T>> forked = new ArrayList<>();
+            while (hi - lo > INSERTION_CUTOFF) {
+                int n = hi - lo;
+                int m = median3(a, lo, lo + n / 2, hi - 1, c);
+                if (n > 40) {           // pseudo-mediana de nueve
+                    int eps = n / 8;
+                    int m1 = median3(a, lo, lo + eps, lo + 2 * eps, c);
+                    int m3 = median3(a, hi - 1 - 2 * eps, hi - 1 - eps, hi - 1, c);
+                    m = median3(a, m1, m, m3, c);
+                }
+                exch(a, lo, m);
+                T v = a[lo];
+                int lt = lo, i = lo + 1, gt = hi - 1;
+                while (i <= gt) {
+                    int cmp = c.compare(a[i], v);
+                    if (cmp < 0)
+                        exch(a, lt++, i++);
+                    else if (cmp > 0)
+                        exch(a, i, gt--);
+                    else
+                        i++;
+                }
+                // a[lo..lt) < v = a[lt..gt] < a[gt+1..hi)
+                int leftN = lt - lo, rightN = hi - gt - 1;
+                if (n > SEQUENTIAL_CUTOFF && Math.min(leftN, rightN) > INSERTION_CUTOFF) {
+                    QuickSortTask<T> left = new QuickSortTask<>(a, lo, lt, c);
+                    left.fork();
+                    forked.add(left);
+                    lo = gt + 1;
+                } else if (leftN < rightN) {
+                    sequential(lo, lt);
+                    lo = gt + 1;
+                } else {
+                    sequential(gt + 1, hi);
+                    hi = lt;
+                }
+            }
+            insertionSort(a, lo, hi, c);
+            for (QuickSortTask<T> t : forked)
+                t.join();
+        }
+
+        private void sequential(int from, int to) {
+            new QuickSortTask<>(a, from, to, c).compute();
+        }
+    }
+
+
+    private static <T> boolean isSorted(T[] a, Comparator<? super T> c) {
+        for (int i = 1; i < a.length; i++)
+            if (c.compare(a[i - 1], a[i]) > 0)
+                return false;
+        return true;
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int cores = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Person[] personas = GeneradorADTs.generar(n).toArray(new Person[0]);
+        Comparator<Person> porNombre = Person.POR_APELLIDO_NOMBRE;
+        Comparator<Person> porEdad = Person.POR_EDAD;
+
+        // Mergesort es estable: debe dar lo mismo que Arrays.sort
+        Person[] expected = personas.clone();
+        Arrays.sort(expected, porEdad);
+        Person[] merged = personas.clone();
+        mergeSort(merged, porEdad);
+        assert Arrays.equals(expected, merged);
+        Person[] quick = personas.clone();
+        quickSort(quick, porEdad);
+        assert isSorted(quick, porEdad);
+        quickSort(quick, porNombre);
+        assert isSorted(quick, porNombre);
+
+        // Arrays.parallelSort usa el pool del hilo que la llama si es un hilo de un ForkJoinPool
+        // (con un solo nucleo en el pool comun ordena secuencialmente)
+        StdOut.printf("%d personas, apellidos y nombres, mediana de %d%n", n, trials);
+        StdOut.printf("%6s %12s %12s %12s %12s%n", "hilos", "mergesort", "quicksort", "parallelSort", "Arrays.sort");
+        for (int p = 1; p <= cores; p = p < cores && 2 * p > cores ? cores : 2 * p) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            try {
+                double tm = Sorting.medianTime(personas::clone, a -> mergeSort(a, porNombre, pool), trials);
+                double tq = Sorting.medianTime(personas::clone, a -> quickSort(a, porNombre, pool), trials);
+                double tp = Sorting.medianTime(personas::clone,
+                        a -> pool.submit(() -> Arrays.parallelSort(a, porNombre)).join(), trials);
+                double ts = Sorting.medianTime(personas::clone, a -> Arrays.sort(a, porNombre), trials);
+                StdOut.printf("%6d %12.3f %12.3f %12.3f %12.3f%n", p, tm, tq, tp, ts);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+}
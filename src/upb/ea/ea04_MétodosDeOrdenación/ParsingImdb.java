@@ -1,11 +1,13 @@
 package upb.ea.ea04_MétodosDeOrdenación;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.File;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.FastDates;
 
 public class ParsingImdb {
 
@@ -14,7 +16,7 @@ public class ParsingImdb {
         private String title;
         private String original_title;
         private int year;
-        private Date date_published;
+        private int date_published;     // dias desde 1970-01-01
         private String genre;
         private int duration;
         private String country;
@@ -34,47 +36,52 @@ public class ParsingImdb {
         private String reviews_from_critics;
     }
 
-    public static void main(String[] args) throws ParseException {
-        String url = "IMDb%20movies.csv";
-        In in = new In(url);
+    // Pelicula con los campos del registro actual del tokenizador
+    static Pelicula fromFields(CsvTokenizer tok) {
+        Pelicula p = new Pelicula();
+        p.imdb_title_id = tok.field(0);
+        p.title = tok.field(1);
+        p.original_title = tok.field(2);
+        p.year = tok.parseInt(3);
+        p.date_published = parseDate(tok, 4);
+        p.genre = tok.field(5);
+        p.duration = tok.parseInt(6);
+        p.country = tok.field(7);
+        p.language = tok.field(8);
+        p.director = tok.field(9);
+        p.writer = tok.field(10);
+        p.production_company = tok.field(11);
+        p.actors = tok.field(12);
+        p.description = tok.field(13);
+        p.avg_vote = tok.parseFloat(14);
+        p.votes = tok.parseInt(15);
+        p.budget = tok.field(16);
+        p.usa_gross_income = tok.field(17);
+        p.worlwide_gross_income = tok.field(18);
+        p.metascore = tok.field(19);
+        p.reviews_from_users = parseFloat(tok.field(20));
+        p.reviews_from_critics = (tok.fieldCount()>21) ? tok.field(21) : null;
+        return p;
+    }
+
+    public static void main(String[] args) {
+        // Una ruta del sistema de archivos, la misma para las dos cargas
+        String path = args.length > 0 ? args[0] : "IMDb movies.csv";
+        In in = new In(new File(path));
         in.readLine(); // ignore first line
+        CsvTokenizer tok = new CsvTokenizer();
         int counter = 0;
+        ArrayList<Pelicula> peliculas = new ArrayList<>();
         while (!in.isEmpty()) {
             counter++;
             String line = in.readLine();
             // StdOut.println(line);
 
-            String[] fields = null;
             try {
-                // Solucion para no separar el campo de actores encerrado en comillas:
-                // Tomada de: https://stackoverflow.com/questions/1757065/java-splitting-a-comma-separated-string-but-ignoring-commas-in-quotes
-                fields = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                // StdOut.println(fields.length);
-                Pelicula p = new Pelicula();
-                p.imdb_title_id = fields[0];
-                p.title = fields[1];
-                p.original_title = fields[2];
-                p.year = Integer.valueOf(fields[3]);
-                p.date_published = parseDate(fields[4]);
-                p.genre = fields[5];
-                p.duration = Integer.valueOf(fields[6]);
-                p.country = fields[7];
-                p.language = fields[8];
-                p.director = fields[9];
-                p.writer = fields[10];
-                p.production_company = fields[11];
-                p.actors = fields[12];
-                p.description = fields[13];
-                p.avg_vote = Float.valueOf(fields[14]);
-                p.votes = Integer.valueOf(fields[15]);
-                p.budget = fields[16];
-                p.usa_gross_income = fields[17];
-                p.worlwide_gross_income = fields[18];
-                p.metascore = fields[19];
-                p.reviews_from_users = parseFloat(fields[20]);
-                p.reviews_from_critics = (fields.length>21) ? fields[21] : null;
+                tok.parse(line);
+                peliculas.add(fromFields(tok));
             }
-            catch(NumberFormatException e) {
+            catch(NumberFormatException | DateTimeParseException e) {
                 StdOut.println("ERROR: Linea "+counter);
                 StdOut.println(line);
                 StdOut.println();
@@ -82,6 +89,12 @@ public class ParsingImdb {
         }
         StdOut.println("Total lines parsed: "+counter);
 
+        // La misma carga en una tabla columnar, en paralelo (ver MovieTable)
+        MovieTable table = MovieTable.load(path);
+        StdOut.println("Peliculas en la tabla: "+table.size());
+        assert table.size() == peliculas.size();
+        for (int i = 0; i < table.size(); i++)
+            assert table.votes(i) == peliculas.get(i).votes && table.title(i).equals(peliculas.get(i).title);
     }
 
     private static float parseFloat(String s) {
@@ -93,16 +106,20 @@ public class ParsingImdb {
         }
     }
 
-    private static Date parseDate(String s) throws ParseException {
-        if (s.indexOf(' ')>=0) return sdfz.parse(s);
-        else if (s.indexOf('-')<0) return sdfy.parse(s);
-        return sdf.parse(s);
+    // Fecha en formato yyyy-MM-dd (el del archivo de Kaggle), MM-dd-yyyy, yyyy o 'TV Movie yyyy', leida sin copiar el campo
+    static int parseDate(CsvTokenizer tok, int i) {
+        int from = tok.start(i), to = tok.end(i);
+        boolean space = false, dash = false;
+        for (int p = from; p < to; p++) {
+            if (tok.charAt(p) == ' ') space = true;
+            else if (tok.charAt(p) == '-') dash = true;
+        }
+        if (space) return FastDates.yearEpochDay(tok, Math.max(from, to - 4), to);
+        else if (!dash) return FastDates.yearEpochDay(tok, from, to);
+        else if (to - from > 4 && tok.charAt(from + 4) == '-') return FastDates.isoEpochDay(tok, from, to);
+        return FastDates.usEpochDay(tok, from, to);
     }
 
-    final static SimpleDateFormat sdf = new SimpleDateFormat("MM-dd-yyyy");
-    final static SimpleDateFormat sdfy = new SimpleDateFormat("yyyy");
-    final static SimpleDateFormat sdfz = new SimpleDateFormat("'TV Movie 'yyyy");
-
 
 
 }
@@ -2,8 +2,26 @@ package upb.ea.ea04_MétodosDeOrdenación;
 
 import java.text.DecimalFormat;
 
+import upb.ea.util.KeyComparator;
+
 class Person implements Comparable<Person> {
 
+    // Ordenes de los ejercicios, compartidos por los ordenamientos y sus benchmarks
+    static final KeyComparator<Person> POR_APELLIDO_NOMBRE = KeyComparator.<Person>builder()
+            .comparing(Person::getApellidos)
+            .comparing(Person::getNombres)
+            .build();
+    static final KeyComparator<Person> POR_EDAD = KeyComparator.<Person>builder()
+            .comparingInt(Person::getEdad)
+            .build();
+    static final KeyComparator<Person> POR_PESO_DESC = KeyComparator.<Person>builder()
+            .comparingDouble(Person::getPeso).descending()
+            .build();
+    static final KeyComparator<Person> POR_EDAD_PESO = KeyComparator.<Person>builder()
+            .comparingInt(Person::getEdad)
+            .comparingDouble(Person::getPeso)
+            .build();
+
     private String nombres;
     private String apellidos;
     private int edad;
@@ -36,10 +54,11 @@ class Person implements Comparable<Person> {
         return nombres+" "+apellidos+" : "+edad+", "+df.format(peso);
     }
 
+    // Orden natural: apellidos y luego nombres
     @Override
     public int compareTo(Person o) {
-        // TODO Auto-generated method stub
-        return 0;
+        int c = apellidos.compareTo(o.apellidos);
+        return c != 0 ? c : nombres.compareTo(o.nombres);
     }
     
     private static final DecimalFormat df = new DecimalFormat();
@@ -0,0 +1,87 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import edu.princeton.cs.algs4.StdOut;
+import upb.ea.util.RadixSort;
+import upb.ea.util.Sorting;
+
+/**
+ * Ordenamiento de personas por claves extraídas (ver RadixSort).
+ *
+ * Apellidos y nombres se ordenan con MSD sobre la cadena apellidos + '\0' +
+ * nombres: el separador es menor que cualquier letra, así que un apellido
+ * que es prefijo de otro queda antes, como con el Comparator. Edad y peso se
+ * empacan en un long (edad en la parte alta, los bits del peso en la baja)
+ * y se ordenan con LSD.
+ */
+public class PersonKeySort {
+
+    private PersonKeySort() { }
+
+    static String claveNombre(Person p) {
+        return p.getApellidos() + '\0' + p.getNombres();
+    }
+
+    static long claveEdadPeso(Person p) {
+        return RadixSort.pack(p.getEdad(), RadixSort.floatKey(p.getPeso()));
+    }
+
+    /** Ordena por apellidos y nombres (estable) */
+    public static void ordenarPorNombre(Person[] a) {
+        RadixSort.sortByString(a, PersonKeySort::claveNombre);
+    }
+
+    public static void ordenarPorNombre(List<Person> a) {
+        RadixSort.sortByString(a, PersonKeySort::claveNombre);
+    }
+
+    /** Ordena por edad y peso (estable) */
+    public static void ordenarPorEdadPeso(Person[] a) {
+        RadixSort.sort(a, PersonKeySort::claveEdadPeso, null);
+    }
+
+    public static void ordenarPorEdadPeso(List<Person> a) {
+        RadixSort.sort(a, PersonKeySort::claveEdadPeso, null);
+    }
+
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int trials = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Las claves deben dar el mismo orden que los Comparator (los dos son estables)
+        List<Person> muestra = GeneradorADTs.generar(10_000);
+        muestra.add(new Person("Ana", "Soto", 30, -0.0f));
+        muestra.add(new Person("Ana", "Soto", 30, 0.0f));
+        muestra.add(new Person("Ana", "Sotomayor", -5, -1.5f));
+        muestra.add(new Person("Ana", "Sot", 30, Float.MAX_VALUE));
+        for (Comparator<Person> c : List.of(Person.POR_APELLIDO_NOMBRE, Person.POR_EDAD_PESO)) {
+            List<Person> expected = new ArrayList<>(muestra);
+            expected.sort(c);
+            List<Person> radix = new ArrayList<>(muestra);
+            if (c == Person.POR_APELLIDO_NOMBRE)
+                ordenarPorNombre(radix);
+            else
+                ordenarPorEdadPeso(radix);
+            assert expected.equals(radix);
+        }
+
+        StdOut.printf("%10s %14s %14s %14s %14s%n", "N", "sort nombre", "radix nombre", "sort edad/peso",
+                "radix edad/peso");
+        for (int n = 100_000; n <= max; n *= 10) {
+            List<Person> personas = GeneradorADTs.generar(n);
+            Supplier<List<Person>> copia = () -> new ArrayList<>(personas);
+            double sn = Sorting.medianTime(copia, a -> Collections.sort(a, Person.POR_APELLIDO_NOMBRE), trials);
+            double rn = Sorting.medianTime(copia, PersonKeySort::ordenarPorNombre, trials);
+            double se = Sorting.medianTime(copia, a -> Collections.sort(a, Person.POR_EDAD_PESO), trials);
+            double re = Sorting.medianTime(copia, PersonKeySort::ordenarPorEdadPeso, trials);
+            StdOut.printf("%10d %14.3f %14.3f %14.3f %14.3f%n", n, sn, rn, se, re);
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Tabla columnar de personas sintéticas, para pruebas con millones de filas.
+ *
+ * En lugar de un objeto Person con dos cadenas concatenadas por fila, cada
+ * columna es un arreglo primitivo:
+ * <ul>
+ * <li>los dos nombres y los dos apellidos como índices (short) en los
+ *     arreglos de GeneradorADTs; los nombres de mujer y de hombre forman un
+ *     solo diccionario, primero los de mujer</li>
+ * <li>la edad en un byte y el peso en un float</li>
+ * </ul>
+ * Son 13 bytes por persona. Las cadenas solo se construyen cuando se piden
+ * (nombres, apellidos, persona).
+ *
+ * La generación en paralelo divide las filas en bloques de CHUNK filas.
+ * Cada bloque tiene su propio SplittableRandom, obtenido con split() de la
+ * semilla en el orden de los bloques, así que la tabla depende solo de la
+ * semilla y no del número de hilos.
+ */
+public class PersonTable {
+
+    static final int CHUNK = 1 << 16;
+
+    private static final String[] NOMBRES = new String[GeneradorADTs.mujer.length + GeneradorADTs.hombre.length];
+    static {
+        System.arraycopy(GeneradorADTs.mujer, 0, NOMBRES, 0, GeneradorADTs.mujer.length);
+        System.arraycopy(GeneradorADTs.hombre, 0, NOMBRES, GeneradorADTs.mujer.length, GeneradorADTs.hombre.length);
+    }
+
+    private final int n;
+    private final short[] nombre1;
+    private final short[] nombre2;
+    private final short[] apellido1;
+    private final short[] apellido2;
+    private final byte[] edad;
+    private final float[] peso;
+
+    private PersonTable(int n) {
+        this.n = n;
+        nombre1 = new short[n];
+        nombre2 = new short[n];
+        apellido1 = new short[n];
+        apellido2 = new short[n];
+        edad = new byte[n];
+        peso = new float[n];
+    }
+
+
+    public static PersonTable generar(int n, long seed) {
+        return generar(n, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Genera n personas con la misma distribución que GeneradorADTs.generar
+     * @param threads numero de hilos
+     */
+    public static PersonTable generar(int n, long seed, int threads) {
+        if (n < 0 || threads < 1)
+            throw new IllegalArgumentException("n must be non-negative and threads positive");
+        PersonTable t = new PersonTable(n);
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> parts = new ArrayList<>();
+            for (int from = 0; from < n; from += CHUNK) {
+                int lo = from, hi = Math.min(n, from + CHUNK);
+                SplittableRandom rnd = root.split();
+                parts.add(pool.submit(() -> t.fill(lo, hi, rnd)));
+            }
+            for (Future<?> f : parts)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error generating", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return t;
+    }
+
+    private void fill(int lo, int hi, SplittableRandom rnd) {
+        int mujeres = GeneradorADTs.mujer.length, hombres = GeneradorADTs.hombre.length;
+        int apellidos = GeneradorADTs.apellidos.length;
+        for (int i = lo; i < hi; i++) {
+            if (rnd.nextBoolean()) {
+                nombre1[i] = (short) rnd.nextInt(mujeres);
+                nombre2[i] = (short) rnd.nextInt(mujeres);
+            } else {
+                nombre1[i] = (short) (mujeres + rnd.nextInt(hombres));
+                nombre2[i] = (short) (mujeres + rnd.nextInt(hombres));
+            }
+            apellido1[i] = (short) rnd.nextInt(apellidos);
+            apellido2[i] = (short) rnd.nextInt(apellidos);
+            edad[i] = (byte) rnd.nextInt(80);
+            peso[i] = (float) rnd.nextDouble(2.0, 100.0);
+        }
+    }
+
+
+    public int size() {
+        return n;
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= n)
+            throw new IndexOutOfBoundsException("Row " + row + " of a table with " + n + " rows");
+    }
+
+    public boolean esMujer(int row) {
+        check(row);
+        return nombre1[row] < GeneradorADTs.mujer.length;
+    }
+
+    public String nombres(int row) {
+        check(row);
+        return NOMBRES[nombre1[row]] + " " + NOMBRES[nombre2[row]];
+    }
+
+    public String apellidos(int row) {
+        check(row);
+        return GeneradorADTs.apellidos[apellido1[row]] + " " + GeneradorADTs.apellidos[apellido2[row]];
+    }
+
+    public int edad(int row) {
+        check(row);
+        return edad[row];
+    }
+
+    public float peso(int row) {
+        check(row);
+        return peso[row];
+    }
+
+    /** La fila como Person (crea las cadenas) */
+    public Person persona(int row) {
+        return new Person(nombres(row), apellidos(row), edad(row), peso(row));
+    }
+
+    /** Las filas from..to-1 como Person */
+    public List<Person> personas(int from, int to) {
+        if (from < 0 || to > n || from > to)
+            throw new IndexOutOfBoundsException("Rows " + from + ".." + to + " of a table with " + n + " rows");
+        List<Person> list = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++)
+            list.add(persona(i));
+        return list;
+    }
+
+    /** Número de personas de cada edad, sin crear cadenas */
+    public int[] contarPorEdad() {
+        int[] count = new int[128];
+        for (int i = 0; i < n; i++)
+            count[edad[i]]++;
+        return count;
+    }
+
+
+    private static long memoriaUsada() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int cores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = 42;
+
+        // La tabla depende solo de la semilla
+        PersonTable a = generar(200_000, seed, 1);
+        PersonTable b = generar(200_000, seed, 3);
+        assert Arrays.equals(a.nombre1, b.nombre1) && Arrays.equals(a.nombre2, b.nombre2);
+        assert Arrays.equals(a.apellido1, b.apellido1) && Arrays.equals(a.apellido2, b.apellido2);
+        assert Arrays.equals(a.edad, b.edad) && Arrays.equals(a.peso, b.peso);
+        for (Person p : a.personas(0, 5))
+            StdOut.println(p);
+
+        for (int threads = 1; threads <= Math.max(2, cores); threads *= 2) {
+            Stopwatch sw = new Stopwatch();
+            PersonTable t = generar(n, seed, threads);
+            StdOut.printf("PersonTable, %d hilos: %d personas %8.3f s%n", threads, t.size(), sw.elapsedTime());
+        }
+        long antes = memoriaUsada();
+        PersonTable t = generar(n, seed);
+        long tabla = memoriaUsada() - antes;
+        int[] porEdad = t.contarPorEdad();
+        StdOut.printf("PersonTable: %.1f bytes por persona, %d personas de 30 años%n", (double) tabla / n,
+                porEdad[30]);
+        t = null;
+
+        // La lista de objetos, con menos filas para no agotar la memoria
+        int m = Math.min(n, 1_000_000);
+        antes = memoriaUsada();
+        Stopwatch sw = new Stopwatch();
+        List<Person> personas = GeneradorADTs.generar(m);
+        double tiempo = sw.elapsedTime();
+        long lista = memoriaUsada() - antes;
+        StdOut.printf("GeneradorADTs.generar: %d personas %8.3f s, %.1f bytes por persona%n", personas.size(),
+                tiempo, (double) lista / m);
+    }
+
+}
@@ -0,0 +1,393 @@
+package upb.ea.ea04_MétodosDeOrdenación;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import upb.ea.util.Benchmark;
+import upb.ea.util.Sorting;
+
+/**
+ * Benchmark de los métodos de ordenación sobre Person[] y ArrayList&lt;Person&gt;,
+ * por edad y peso, con varias distribuciones de entrada.
+ *
+ * Los métodos del curso (inserción, shell, merge, quick, quick en tres
+ * partes, heap) están escritos una vez sobre Seq, una interfaz de acceso
+ * por índice con un adaptador para el arreglo y otro para ArrayList, cuyo
+ * get/set además revisa los índices. Los del JDK usan Arrays.sort o
+ * List.sort (Arrays.parallelSort no tiene versión para listas: la lista se
+ * copia a un arreglo y de vuelta), y radix usa PersonKeySort.
+ *
+ * Cada medición ordena una copia de la entrada: unas iteraciones de
+ * calentamiento que se descartan y luego varias medidas; el reporte
+ * muestra la mediana del tiempo y los bytes asignados por elemento (del
+ * contador de asignación del hilo). Una corrida adicional cuenta las
+ * comparaciones (envolviendo el Comparator) y las escrituras en la
+ * secuencia (un intercambio son dos escrituras); los métodos del JDK y
+ * radix no reportan escrituras. Las opciones son las de Benchmark; con
+ * -forks k cada método se mide en k JVM nuevas.
+ *
+ * Uso:
+ * <pre>
+ *   java SortBenchmark [-warmup w] [-trials t] [-forks k] [-only Metodo] [-n N]
+ * </pre>
+ */
+public class SortBenchmark {
+
+    /** Entradas, todas con la misma cantidad de personas */
+    enum Input {
+        RANDOM, SORTED, REVERSED, FEW_UNIQUE, ZIPF
+    }
+
+    static final Comparator<Person> ORDEN = Person.POR_EDAD_PESO;
+
+    /** Un método de ordenación, sobre arreglo y sobre lista */
+    interface Sorter {
+        void sort(Person[] a, Comparator<Person> c);
+        void sort(List<Person> a, Comparator<Person> c);
+    }
+
+    private static class Impl {
+        final String name;
+        final Sorter sorter;
+        final int maxN;             // entradas mas grandes tardan demasiado con este metodo
+        final boolean counts;       // cuenta las escrituras
+
+        Impl(String name, Sorter sorter, int maxN, boolean counts) {
+            this.name = name;
+            this.sorter = sorter;
+            this.maxN = maxN;
+            this.counts = counts;
+        }
+    }
+
+    static final Impl[] IMPLS = {
+        new Impl("Insercion", sorter(SortBenchmark::insertion), 20_000, true),
+        new Impl("Shell", sorter(SortBenchmark::shell), Integer.MAX_VALUE, true),
+        new Impl("Merge", sorter(SortBenchmark::merge), Integer.MAX_VALUE, true),
+        new Impl("Quick", sorter(SortBenchmark::quick), Integer.MAX_VALUE, true),
+        new Impl("Quick3way", sorter(SortBenchmark::quick3way), Integer.MAX_VALUE, true),
+        new Impl("Heap", sorter(SortBenchmark::heap), Integer.MAX_VALUE, true),
+        new Impl("Radix", new Sorter() {
+            public void sort(Person[] a, Comparator<Person> c) { PersonKeySort.ordenarPorEdadPeso(a); }
+            public void sort(List<Person> a, Comparator<Person> c) { PersonKeySort.ordenarPorEdadPeso(a); }
+        }, Integer.MAX_VALUE, false),
+        new Impl("JDK", new Sorter() {
+            public void sort(Person[] a, Comparator<Person> c) { Arrays.sort(a, c); }
+            public void sort(List<Person> a, Comparator<Person> c) { a.sort(c); }
+        }, Integer.MAX_VALUE, false),
+        new Impl("JDK parallel", new Sorter() {
+            public void sort(Person[] a, Comparator<Person> c) { Arrays.parallelSort(a, c); }
+            public void sort(List<Person> a, Comparator<Person> c) {
+                Person[] t = a.toArray(new Person[0]);
+                Arrays.parallelSort(t, c);
+                Sorting.copyBack(t, a);
+            }
+        }, Integer.MAX_VALUE, false),
+    };
+
+    static final int[] SIZES = { 1_000, 10_000, 100_000 };
+
+
+    // Escrituras en la secuencia del ultimo ordenamiento
+    private static long writes;
+
+    /**
+     * Acceso por indice a la secuencia que se ordena. Los metodos del curso
+     * se escriben una sola vez sobre Seq; los adaptadores de arreglo y de
+     * lista hacen que midan el costo de cada contenedor
+     */
+    interface Seq {
+        int size();
+        Person get(int i);
+        void set(int i, Person p);
+    }
+
+    static final class ArraySeq implements Seq {
+        private final Person[] a;
+
+        ArraySeq(Person[] a) { this.a = a; }
+
+        public int size()                  { return a.length; }
+        public Person get(int i)           { return a[i]; }
+        public void set(int i, Person p)   { a[i] = p; }
+    }
+
+    static final class ListSeq implements Seq {
+        private final List<Person> a;
+
+        ListSeq(List<Person> a) { this.a = a; }
+
+        public int size()                  { return a.size(); }
+        public Person get(int i)           { return a.get(i); }
+        public void set(int i, Person p)   { a.set(i, p); }
+    }
+
+    interface SeqSort {
+        void sort(Seq a, Comparator<Person> c);
+    }
+
+    // Un metodo del curso, sobre el arreglo o la lista a traves de su adaptador
+    static Sorter sorter(SeqSort s) {
+        return new Sorter() {
+            public void sort(Person[] a, Comparator<Person> c) { s.sort(new ArraySeq(a), c); }
+            public void sort(List<Person> a, Comparator<Person> c) { s.sort(new ListSeq(a), c); }
+        };
+    }
+
+    private static void set(Seq a, int i, Person p) {
+        a.set(i, p);
+        writes++;
+    }
+
+    private static void exch(Seq a, int i, int j) {
+        Person t = a.get(i);
+        set(a, i, a.get(j));
+        set(a, j, t);
+    }
+
+    private static boolean less(Comparator<Person> c, Person v, Person w) {
+        return c.compare(v, w) < 0;
+    }
+
+    static void insertion(Seq a, Comparator<Person> c) {
+        int n = a.size();
+        for (int i = 1; i < n; i++)
+            for (int j = i; j > 0 && less(c, a.get(j), a.get(j - 1)); j--)
+                exch(a, j, j - 1);
+    }
+
+    static void shell(Seq a, Comparator<Person> c) {
+        int n = a.size();
+        int h = 1;
+        while (h < n / 3)
+            h = 3 * h + 1;
+        for (; h >= 1; h /= 3)
+            for (int i = h; i < n; i++)
+                for (int j = i; j >= h && less(c, a.get(j), a.get(j - h)); j -= h)
+                    exch(a, j, j - h);
+    }
+
+    static void merge(Seq a, Comparator<Person> c) {
+        merge(a, new Person[a.size()], 0, a.size() - 1, c);
+    }
+
+    private static void merge(Seq a, Person[] aux, int lo, int hi, Comparator<Person> c) {
+        if (hi <= lo)
+            return;
+        int mid = lo + (hi - lo) / 2;
+        merge(a, aux, lo, mid, c);
+        merge(a, aux, mid + 1, hi, c);
+        for (int k = lo; k <= hi; k++)
+            aux[k] = a.get(k);
+        int i = lo, j = mid + 1;
+        for (int k = lo; k <= hi; k++) {
+            if (i > mid)
+                set(a, k, aux[j++]);
+            else if (j > hi)
+                set(a, k, aux[i++]);
+            else if (less(c, aux[j], aux[i]))
+                set(a, k, aux[j++]);
+            else
+                set(a, k, aux[i++]);
+        }
+    }
+
+    // Los quicksort barajan la entrada con una semilla fija, para que las entradas ordenadas no sean
+    // cuadraticas; el barajado es el de Collections.shuffle y no cuenta como escrituras
+    private static void shuffle(Seq a) {
+        Random rnd = new Random(7);
+        for (int i = a.size(); i > 1; i--) {
+            int j = rnd.nextInt(i);
+            Person t = a.get(i - 1);
+            a.set(i - 1, a.get(j));
+            a.set(j, t);
+        }
+    }
+
+    static void quick(Seq a, Comparator<Person> c) {
+        shuffle(a);
+        quick(a, 0, a.size() - 1, c);
+    }
+
+    private static void quick(Seq a, int lo, int hi, Comparator<Person> c) {
+        if (hi <= lo)
+            return;
+        int i = lo, j = hi + 1;
+        Person v = a.get(lo);
+        while (true) {
+            while (less(c, a.get(++i), v))
+                if (i == hi)
+                    break;
+            while (less(c, v, a.get(--j)))
+                if (j == lo)
+                    break;
+            if (i >= j)
+                break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        quick(a, lo, j - 1, c);
+        quick(a, j + 1, hi, c);
+    }
+
+    static void quick3way(Seq a, Comparator<Person> c) {
+        shuffle(a);
+        quick3way(a, 0, a.size() - 1, c);
+    }
+
+    private static void quick3way(Seq a, int lo, int hi, Comparator<Person> c) {
+        if (hi <= lo)
+            return;
+        int lt = lo, gt = hi, i = lo + 1;
+        Person v = a.get(lo);
+        while (i <= gt) {
+            int cmp = c.compare(a.get(i), v);
+            if (cmp < 0)
+                exch(a, lt++, i++);
+            else if (cmp > 0)
+                exch(a, i, gt--);
+            else
+                i++;
+        }
+        quick3way(a, lo, lt - 1, c);
+        quick3way(a, gt + 1, hi, c);
+    }
+
+    static void heap(Seq a, Comparator<Person> c) {
+        int n = a.size();
+        for (int k = n / 2; k >= 1; k--)
+            sink(a, k, n, c);
+        while (n > 1) {
+            exch(a, 0, --n);
+            sink(a, 1, n, c);
+        }
+    }
+
+    // Indices del heap desde 1
+    private static void sink(Seq a, int k, int n, Comparator<Person> c) {
+        while (2 * k <= n) {
+            int j = 2 * k;
+            if (j < n && less(c, a.get(j - 1), a.get(j)))
+                j++;
+            if (!less(c, a.get(k - 1), a.get(j - 1)))
+                break;
+            exch(a, k - 1, j - 1);
+            k = j;
+        }
+    }
+
+
+    /** n personas con la distribucion de la entrada; siempre las mismas para la misma n */
+    static Person[] input(Input kind, int n) {
+        StdRandom.setSeed(42);
+        Person[] a = GeneradorADTs.generar(n).toArray(new Person[0]);
+        switch (kind) {
+            case RANDOM:
+                break;
+            case SORTED:
+                Arrays.sort(a, ORDEN);
+                break;
+            case REVERSED:
+                Arrays.sort(a, ORDEN.reversed());
+                break;
+            case FEW_UNIQUE:
+                // 5 edades y un solo peso
+                for (int i = 0; i < n; i++)
+                    a[i] = new Person(a[i].getNombres(), a[i].getApellidos(), 20 * StdRandom.uniform(5), 70f);
+                break;
+            case ZIPF:
+                // 1000 claves (edad, peso) con probabilidad proporcional a 1/rango
+                double[] cdf = new double[1000];
+                double sum = 0;
+                for (int i = 0; i < cdf.length; i++)
+                    cdf[i] = sum += 1.0 / (i + 1);
+                for (int i = 0; i < n; i++) {
+                    int k = Arrays.binarySearch(cdf, StdRandom.uniform() * sum);
+                    k = k < 0 ? -k - 1 : k;
+                    a[i] = new Person(a[i].getNombres(), a[i].getApellidos(), k % 80, 50f + k / 80);
+                }
+                break;
+        }
+        return a;
+    }
+
+
+    /**
+     * Una medicion: ordena una copia de la entrada
+     * @return { ns, bytes }
+     */
+    static long[] run(Impl impl, Person[] input, boolean list, Comparator<Person> c) {
+        Person[] a = input.clone();
+        List<Person> l = list ? new ArrayList<>(Arrays.asList(input)) : null;
+        writes = 0;
+        long b0 = Benchmark.allocatedBytes();
+        long t0 = System.nanoTime();
+        if (list)
+            impl.sorter.sort(l, c);
+        else
+            impl.sorter.sort(a, c);
+        long t1 = System.nanoTime();
+        long b1 = Benchmark.allocatedBytes();
+        for (int i = 1; i < input.length; i++)
+            assert ORDEN.compare(list ? l.get(i - 1) : a[i - 1], list ? l.get(i) : a[i]) <= 0;
+        return new long[] { t1 - t0, b1 - b0 };
+    }
+
+    static void measure(Impl impl, int[] sizes, int warmup, int trials) {
+        for (int n : sizes) {
+            if (n > impl.maxN)
+                continue;
+            for (Input kind : Input.values()) {
+                Person[] input = input(kind, n);
+                for (boolean list : new boolean[] { false, true }) {
+                    for (int w = 0; w < warmup; w++)
+                        run(impl, input, list, ORDEN);
+                    double[] ms = new double[trials];
+                    double bytes = 0;
+                    for (int t = 0; t < trials; t++) {
+                        long[] r = run(impl, input, list, ORDEN);
+                        ms[t] = r[0] / 1e6;
+                        bytes += (double) r[1] / n / trials;
+                    }
+                    long[] compares = new long[1];
+                    run(impl, input, list, (x, y) -> {
+                        compares[0]++;
+                        return ORDEN.compare(x, y);
+                    });
+                    StdOut.printf("%-13s %-11s %-6s %9d %10.3f %9.1f %14d %14s%n", impl.name, kind,
+                            list ? "lista" : "array", n, Benchmark.median(ms), bytes, compares[0],
+                            impl.counts ? "" + writes : "-");
+                }
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Benchmark.Options opt = Benchmark.Options.parse(args, "-n");
+        if (!opt.args.isEmpty())
+            throw new IllegalArgumentException("Unknown option " + opt.args.get(0));
+        String n = opt.extra.get("-n");
+        int[] sizes = n == null ? SIZES : new int[] { Integer.parseInt(n) };
+
+        if (opt.header)
+            StdOut.printf("%-13s %-11s %-6s %9s %10s %9s %14s %14s%n", "Metodo", "Entrada", "Tipo", "N",
+                    "ms", "B/elem", "comparaciones", "escrituras");
+        for (Impl impl : IMPLS) {
+            if (!opt.selected(impl.name))
+                continue;
+            if (opt.forks > 0)
+                for (int f = 0; f < opt.forks; f++)
+                    Benchmark.fork(SortBenchmark.class, opt, impl.name);
+            else
+                measure(impl, sizes, opt.warmup, opt.trials);
+        }
+    }
+
+}
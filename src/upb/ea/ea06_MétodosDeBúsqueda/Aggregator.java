@@ -0,0 +1,93 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+/**
+ * Aggregate function for DelayGroupBy.
+ *
+ * Each group of each partition gets its own state from create(); the values
+ * of the group are added to it and at the end the states of the partitions
+ * are merged and converted to a number with result().
+ *
+ * @param <S> type of the state of a group
+ */
+public interface Aggregator<S> {
+
+    S create();
+
+    void add(S state, int value);
+
+    /** Add the contents of other to into */
+    void merge(S into, S other);
+
+    double result(S state);
+
+    String name();
+
+
+    /** Number of non null values */
+    static Aggregator<long[]> count() {
+        return new Aggregator<long[]>() {
+            public long[] create()                        { return new long[1]; }
+            public void add(long[] s, int v)              { s[0]++; }
+            public void merge(long[] into, long[] other)  { into[0] += other[0]; }
+            public double result(long[] s)                { return s[0]; }
+            public String name()                          { return "count"; }
+        };
+    }
+
+    static Aggregator<long[]> sum() {
+        return new Aggregator<long[]>() {
+            public long[] create()                        { return new long[1]; }
+            public void add(long[] s, int v)              { s[0] += v; }
+            public void merge(long[] into, long[] other)  { into[0] += other[0]; }
+            public double result(long[] s)                { return s[0]; }
+            public String name()                          { return "sum"; }
+        };
+    }
+
+    /** Arithmetic mean, state is { sum, count } */
+    static Aggregator<long[]> mean() {
+        return new Aggregator<long[]>() {
+            public long[] create()                        { return new long[2]; }
+            public void add(long[] s, int v)              { s[0] += v; s[1]++; }
+            public void merge(long[] into, long[] other)  { into[0] += other[0]; into[1] += other[1]; }
+            public double result(long[] s)                { return s[1] == 0 ? Double.NaN : (double) s[0] / s[1]; }
+            public String name()                          { return "mean"; }
+        };
+    }
+
+    static Aggregator<int[]> min() {
+        return new Aggregator<int[]>() {
+            public int[] create()                         { return new int[] { Integer.MAX_VALUE }; }
+            public void add(int[] s, int v)               { if (v < s[0]) s[0] = v; }
+            public void merge(int[] into, int[] other)    { add(into, other[0]); }
+            public double result(int[] s)                 { return s[0]; }
+            public String name()                          { return "min"; }
+        };
+    }
+
+    static Aggregator<int[]> max() {
+        return new Aggregator<int[]>() {
+            public int[] create()                         { return new int[] { Integer.MIN_VALUE }; }
+            public void add(int[] s, int v)               { if (v > s[0]) s[0] = v; }
+            public void merge(int[] into, int[] other)    { add(into, other[0]); }
+            public double result(int[] s)                 { return s[0]; }
+            public String name()                          { return "max"; }
+        };
+    }
+
+    /**
+     * Approximate q-quantile with 1% relative accuracy (see QuantileSketch)
+     */
+    static Aggregator<QuantileSketch> quantile(double q) {
+        if (q < 0 || q > 1)
+            throw new IllegalArgumentException("q must be in [0, 1]");
+        return new Aggregator<QuantileSketch>() {
+            public QuantileSketch create()                               { return new QuantileSketch(); }
+            public void add(QuantileSketch s, int v)                     { s.add(v); }
+            public void merge(QuantileSketch into, QuantileSketch other) { into.merge(other); }
+            public double result(QuantileSketch s)                       { return s.quantile(q); }
+            public String name()                                         { return "p" + Math.round(100 * q); }
+        };
+    }
+
+}
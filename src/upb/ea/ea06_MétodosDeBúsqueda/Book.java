@@ -0,0 +1,55 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.time.LocalDate;
+
+import upb.ea.util.FastDates;
+
+/**
+ * Un ADT para representar los libros en la coleccion
+ */
+class Book {
+    private int bookID;
+    private String title;
+    private String authors;
+    private float average_rating;
+    private String isbn;
+    private String isbn13;
+    private String language_code;
+    private int num_pages;
+    private int ratings_count;
+    private int text_reviews_count;
+    private int publication_date;   // dias desde 1970-01-01
+    private String publisher;
+    
+    Book(String line) {
+        String[] tmp = line.split(",");
+        bookID = Integer.valueOf(tmp[0]);
+        title = tmp[1];
+        authors = tmp[2];
+        average_rating = Float.parseFloat(tmp[3]);
+        isbn = tmp[4];
+        isbn13 = tmp[5];
+        language_code = tmp[6];
+        num_pages = Integer.valueOf(tmp[7]);
+        ratings_count = Integer.valueOf(tmp[8]);
+        text_reviews_count = Integer.valueOf(tmp[9]);
+        publication_date = FastDates.usEpochDay(tmp[10]);   // MM/dd/yyyy
+        publisher = tmp[11];
+    }
+
+    public int    getBookID()             { return bookID; }
+    public String getTitle()              { return title; }
+    public String getAuthors()            { return authors; }
+    public float  getAverage_rating()     { return average_rating; }
+    public String getIsbn()               { return isbn; }
+    public String getIsbn13()             { return isbn13; }
+    public String getLanguage_code()      { return language_code; }
+    public int    getNum_pages()          { return num_pages; }
+    public int    getRatings_count()      { return ratings_count; }
+    public int    getText_reviews_count() { return text_reviews_count; }
+    public LocalDate getPublication_date() { return LocalDate.ofEpochDay(publication_date); }
+    public String getPublisher()          { return publisher; }
+
+    void setAverage_rating(float rating)  { average_rating = rating; }
+
+}
@@ -0,0 +1,193 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.princeton.cs.algs4.RedBlackBST;
+import edu.princeton.cs.algs4.SeparateChainingHashST;
+import upb.ea.util.TopK;
+
+/**
+ * In-memory catalog of the Goodreads books with secondary indexes.
+ *
+ * Every book gets a dense id (its position in the catalog). The indexes are
+ * updated as each book is added, so they are all built in one pass over the
+ * file:
+ * <ul>
+ * <li>author to book ids, in a SeparateChainingHashST, together with the
+ *     running sum of the ratings of the author, so the average rating of an
+ *     author is O(1)</li>
+ * <li>publication year to book ids, in a RedBlackBST, so a year or a range
+ *     of years is found in O(log n) plus the size of the answer</li>
+ * </ul>
+ * The authors field lists several authors separated by '/'; the book is
+ * indexed under each one of them.
+ *
+ * Each author also keeps a TopK with its best rated books, updated as books
+ * are added or their rating changes, so topByAuthor() is O(k).
+ */
+public class BookCatalog {
+
+    /**
+     * Entry of the author index
+     */
+    private static class Author {
+        int[] ids = new int[2];         // ids[0..n), in the order they were added
+        int n;
+        final TopK top;
+        double ratingSum;
+
+        Author(int k) {
+            top = new TopK(k);
+        }
+
+        void add(int id) {
+            if (n == ids.length)
+                ids = Arrays.copyOf(ids, 2 * n);
+            ids[n++] = id;
+        }
+    }
+
+    private final int k;
+    private final ArrayList<Book> books = new ArrayList<>();
+    private final SeparateChainingHashST<String, Author> byAuthor = new SeparateChainingHashST<>();
+    private final RedBlackBST<Integer, ArrayList<Integer>> byYear = new RedBlackBST<>();
+    private InvertedIndex titles;       // built by the first search, dropped by add()
+
+    public BookCatalog() {
+        this(5);
+    }
+
+    /**
+     * @param k number of books kept in the top of each author
+     */
+    public BookCatalog(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive");
+        this.k = k;
+    }
+
+    /**
+     * Add a book to the catalog and to every index
+     * @return the id of the book in the catalog
+     */
+    public int add(Book b) {
+        int id = books.size();
+        books.add(b);
+        titles = null;
+        for (String name : authors(b)) {
+            Author a = byAuthor.get(name);
+            if (a == null) {
+                a = new Author(k);
+                byAuthor.put(name, a);
+            }
+            a.add(id);
+            a.ratingSum += b.getAverage_rating();
+            a.top.offer(id, b.getAverage_rating());
+        }
+        int year = b.getPublication_date().getYear();
+        ArrayList<Integer> ids = byYear.get(year);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            byYear.put(year, ids);
+        }
+        ids.add(id);
+        return id;
+    }
+
+    /** Authors of a book, the field separates them with '/' */
+    static String[] authors(Book b) {
+        String[] names = b.getAuthors().split("/");
+        for (int i = 0; i < names.length; i++)
+            names[i] = names[i].trim();
+        return names;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    public Book book(int id) {
+        return books.get(id);
+    }
+
+
+    /** All the authors, in no particular order */
+    public Iterable<String> authors() {
+        return byAuthor.keys();
+    }
+
+    /** Ids of the books of the author, in the order they were added; empty if the author is unknown */
+    public int[] booksByAuthor(String author) {
+        Author a = byAuthor.get(author);
+        return a == null ? new int[0] : Arrays.copyOf(a.ids, a.n);
+    }
+
+    /** Average rating of the books of the author, NaN if the author is unknown */
+    public double averageRating(String author) {
+        Author a = byAuthor.get(author);
+        return a == null ? Double.NaN : a.ratingSum / a.n;
+    }
+
+    /**
+     * Ids of the k best rated books of the author, best first; ties go to
+     * the book added first
+     */
+    public int[] topByAuthor(String author) {
+        Author a = byAuthor.get(author);
+        return a == null ? new int[0] : a.top.top();
+    }
+
+    /**
+     * Change the rating of a book and update the indexes of its authors
+     */
+    public void updateRating(int id, float rating) {
+        Book b = books.get(id);
+        float old = b.getAverage_rating();
+        b.setAverage_rating(rating);
+        for (String name : authors(b)) {
+            Author a = byAuthor.get(name);
+            a.ratingSum += rating - old;
+            if (!a.top.update(id, rating)) {
+                // a book of the top went down, another book may take its place
+                a.top.clear();
+                for (int i = 0; i < a.n; i++)
+                    a.top.offer(a.ids[i], books.get(a.ids[i]).getAverage_rating());
+            }
+        }
+    }
+
+
+    /**
+     * Ids of the books whose title contains all the words
+     */
+    public int[] searchTitles(String... words) {
+        if (titles == null)
+            titles = InvertedIndex.build(books.size(), id -> books.get(id).getTitle());
+        return titles.and(words);
+    }
+
+
+    /** Years with at least one book, in ascending order */
+    public Iterable<Integer> years() {
+        return byYear.keys();
+    }
+
+    /** Number of books published in the year */
+    public int booksInYear(int year) {
+        ArrayList<Integer> ids = byYear.get(year);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /** Ids of the books published between the two years, both included */
+    public List<Integer> booksBetween(int fromYear, int toYear) {
+        List<Integer> result = new ArrayList<>();
+        if (fromYear > toYear)
+            return result;
+        for (int y : byYear.keys(fromYear, toYear))
+            result.addAll(byYear.get(y));
+        return result;
+    }
+
+}
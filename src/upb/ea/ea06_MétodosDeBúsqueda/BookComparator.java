@@ -0,0 +1,13 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.Comparator;
+
+class BookComparator implements Comparator<Book> {
+
+    public int compare(Book a, Book b) {
+        // TODO: Hacer un comparador de libros
+
+        return 0;
+    }
+
+}
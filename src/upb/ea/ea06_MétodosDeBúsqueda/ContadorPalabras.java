@@ -4,12 +4,19 @@ import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -22,12 +29,16 @@ import edu.princeton.cs.algs4.SeparateChainingHashST;
 import edu.princeton.cs.algs4.SequentialSearchST;
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.FileChunks;
 
 public class ContadorPalabras {
-       
+
+    // Tamaño aproximado del bloque que cuenta cada tarea
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
 
     public static SequentialSearchST<String, Integer> wordCount(int minLen, In in) {
 
+        // SymbolTableBenchmark compara todas estas implementaciones sobre el mismo corpus
         SequentialSearchST<String,Integer> st = new SequentialSearchST<>();
         //BinarySearchST<String,Integer> st = new BinarySearchST<>();
         //BST<String,Integer> st = new BST<>();
@@ -47,9 +58,135 @@ public class ContadorPalabras {
         return st;
     }
 
+    /**
+     * Igual que wordCount, con una tabla especializada para contar:
+     * un solo sondeo por palabra y sin Integer por cada conteo
+     */
+    public static CountingHashST<String> wordCountHash(In in) {
+        CountingHashST<String> st = new CountingHashST<>();
+        while (! in.isEmpty() )
+            st.increment(in.readString().toLowerCase());
+        return st;
+    }
+
+
+    /**
+     * Conteo en paralelo (map-reduce) de las palabras de un archivo UTF-8.
+     *
+     * El archivo se mapea en memoria y se divide en bloques que terminan en un
+     * byte de espacio en blanco, asi ninguna palabra ni caracter multibyte
+     * queda partido entre dos bloques. Cada tarea cuenta su bloque en su propia
+     * tabla hash y al final las tablas parciales se combinan.
+     * Las palabras se separan y se pasan a minusculas igual que con
+     * In.readString(), por lo que los conteos son los mismos de wordCount.
+     *
+     * @param filename archivo de texto en UTF-8
+     * @param threads numero de hilos
+     * @param chunkSize numero aproximado de bytes por tarea
+     */
+    public static CountingHashST<String> wordCountParallel(String filename, int threads, int chunkSize) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            // map: bloques que terminan en un espacio en blanco, contados en paralelo
+            ArrayList<Long> bounds = new ArrayList<>();
+            long size = ch.size();
+            for (long from = 0; from < size; ) {
+                bounds.add(from);
+                from = from + chunkSize >= size ? size : nextWhitespace(ch, from + chunkSize);
+            }
+            bounds.add(size);
+            long[] b = new long[bounds.size()];
+            for (int i = 0; i < b.length; i++)
+                b[i] = bounds.get(i);
+            // reduce: sumar las tablas parciales sobre la primera
+            CountingHashST<String> total = new CountingHashST<>();
+            for (CountingHashST<String> partial : FileChunks.parallel(ch, b, threads, ContadorPalabras::countChunk)) {
+                if (total.isEmpty())
+                    total = partial;
+                else
+                    total.merge(partial);
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CountingHashST<String> wordCountParallel(String filename) {
+        return wordCountParallel(filename, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    // Los espacios ASCII nunca son parte de un caracter UTF-8 multibyte
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && Character.isWhitespace(b);
+    }
+
+    // Posicion despues del primer byte de espacio en blanco desde pos, o el tamaño del archivo
+    private static long nextWhitespace(FileChannel ch, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long size = ch.size();
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++)
+                if (isWhitespace(buf.get(i)))
+                    return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+    // map: contar las palabras de los bytes [from, to) del archivo
+    private static CountingHashST<String> countChunk(FileChannel ch, long from, long to) throws IOException {
+        ByteBuffer bytes = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+        char[] a = chars.array();
+        int end = chars.arrayOffset() + chars.limit();
+        CountingHashST<String> st = new CountingHashST<>();
+        int i = chars.arrayOffset();
+        while (i < end) {
+            while (i < end && Character.isWhitespace(a[i]))
+                i++;
+            int start = i;
+            while (i < end && !Character.isWhitespace(a[i]))
+                i++;
+            if (i > start)
+                st.increment(new String(a, start, i - start).toLowerCase());
+        }
+        return st;
+    }
+
+
+    /**
+     * Las m palabras mas frecuentes, contando todas las palabras (modo exacto,
+     * la memoria crece con el vocabulario)
+     */
+    public static List<SpaceSaving.Estimate<String>> topWords(String filename, int m) {
+        return SpaceSaving.top(wordCountParallel(filename), m);
+    }
+
+    /**
+     * Resumen Space-Saving de las palabras, en una sola pasada y con memoria
+     * fija: se guardan a lo sumo capacity palabras y cada conteo se
+     * sobreestima a lo sumo en n / capacity.
+     * Las palabras mas frecuentes se obtienen con top(m).
+     */
+    public static SpaceSaving<String> topWordsApprox(In in, int capacity) {
+        SpaceSaving<String> ss = new SpaceSaving<>(capacity);
+        while (! in.isEmpty() )
+            ss.add(in.readString().toLowerCase());
+        return ss;
+    }
+
+
     public static void main(String[] args) {
 
-        String fname = "gabriel_garcia_marquez_cien_annos_soledad.txt";
+        String fname = args.length > 0 ? args[0] : "gabriel_garcia_marquez_cien_annos_soledad.txt";
         // String fname = "../elRenacuajoPaseador.txt";
 
         In fileInput = new In(fname);
@@ -65,8 +202,40 @@ public class ContadorPalabras {
         StdOut.println();
         StdOut.println("Tiempo: "+tiempo);
 
+        sw = new Stopwatch();
+        CountingHashST<String> hwc = wordCountHash(new In(fname));
+        StdOut.println("Tiempo CountingHashST: "+sw.elapsedTime());
+        assert hwc.size() == wc.size();
+
+        // Version paralela: los mismos conteos, el tiempo debe bajar con el numero de nucleos
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            sw = new Stopwatch();
+            CountingHashST<String> pwc = wordCountParallel(fname, threads, DEFAULT_CHUNK_SIZE);
+            StdOut.printf("Paralelo, %2d hilos: %8.3f s%n", threads, sw.elapsedTime());
+            assert pwc.size() == wc.size();
+            for (String w : wc.keys())
+                assert wc.get(w) == pwc.get(w) : w;
+        }
+
         // TODO: Mostrar los conteos por cada una de las palabras en orden descendiente por conteo
-        // TODO: Obtener la M palabras de mayor frecuencia
+
+        // Las M palabras de mayor frecuencia: exacto contra Space-Saving con memoria fija
+        int m = 10;
+        int capacidad = 100 * m;
+        sw = new Stopwatch();
+        List<SpaceSaving.Estimate<String>> exacto = topWords(fname, m);
+        double tExacto = sw.elapsedTime();
+        sw = new Stopwatch();
+        SpaceSaving<String> ss = topWordsApprox(new In(fname), capacidad);
+        double tAprox = sw.elapsedTime();
+        List<SpaceSaving.Estimate<String>> aprox = ss.top(m);
+        StdOut.printf("%-20s %-28s%n", "Exacto (" + hwc.size() + " claves)", "Space-Saving (" + capacidad + " claves)");
+        for (int i = 0; i < Math.min(exacto.size(), aprox.size()); i++)
+            StdOut.printf("%-20s %-28s%n", exacto.get(i), aprox.get(i));
+        StdOut.printf("Tiempo exacto: %.3f s, aproximado: %.3f s, error maximo: %d%n", tExacto, tAprox, ss.errorBound());
+        for (SpaceSaving.Estimate<String> e : aprox)
+            assert e.lowerBound() <= hwc.get(e.key) && hwc.get(e.key) <= e.count : e;
 
 
         // UTF-8 Falla solo en Windows
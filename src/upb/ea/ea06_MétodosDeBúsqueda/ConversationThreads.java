@@ -0,0 +1,299 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.LongIndexMap;
+import upb.ea.util.StringDictionary;
+
+/**
+ * Conversation threads of the customer support tweets.
+ *
+ * Each reply names the tweet it answers in inResponseToTweetId. The tweet ids
+ * are put in a LongIndexMap, so the parent of every tweet is found with one
+ * hash lookup and the whole join is linear. The children of each tweet are
+ * stored in a single array grouped by parent (counting sort by parent), so
+ * the threads are trees that can be walked without any per-node object.
+ *
+ * A tweet whose parent is not in the data set (or that answers nothing) is
+ * the root of a thread.
+ */
+public class ConversationThreads {
+
+    private final List<CustomerSupportTweet> tweets;
+    private final int[] parent;         // position of the parent, -1 for a root
+    private final int[] childStart;     // children of i are children[childStart[i] .. childStart[i+1])
+    private final int[] children;
+    private final int[] roots;
+
+    private ConversationThreads(List<CustomerSupportTweet> tweets, int[] parent) {
+        int n = tweets.size();
+        this.tweets = tweets;
+        this.parent = parent;
+        childStart = new int[n + 1];
+        int rootCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (parent[i] >= 0)
+                childStart[parent[i] + 1]++;
+            else
+                rootCount++;
+        }
+        for (int i = 0; i < n; i++)
+            childStart[i + 1] += childStart[i];
+        children = new int[childStart[n]];
+        int[] next = new int[n];
+        System.arraycopy(childStart, 0, next, 0, n);
+        roots = new int[rootCount];
+        int r = 0;
+        for (int i = 0; i < n; i++) {
+            if (parent[i] >= 0)
+                children[next[parent[i]]++] = i;
+            else
+                roots[r++] = i;
+        }
+    }
+
+    /**
+     * Link the replies of the given tweets
+     */
+    public static ConversationThreads build(List<CustomerSupportTweet> tweets) {
+        int n = tweets.size();
+        LongIndexMap ids = new LongIndexMap(n);
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            int before = ids.size();
+            int k = ids.add(tweets.get(i).getTweetId());
+            if (ids.size() > before)
+                position[k] = i;        // first tweet with this id
+        }
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            long p = parseId(tweets.get(i).getInResponseToTweetId());
+            int k = p < 0 ? -1 : ids.indexOf(p);
+            parent[i] = k < 0 || position[k] == i ? -1 : position[k];
+        }
+        breakCycles(parent);
+        return new ConversationThreads(tweets, parent);
+    }
+
+    // Id of a tweet, -1 if empty; the export may write ids as "123.0"
+    static long parseId(String s) {
+        if (s == null || s.isEmpty())
+            return -1;
+        long v = 0;
+        for (int i = 0; i < s.length() && s.charAt(i) != '.'; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            v = 10 * v + c - '0';
+        }
+        return v;
+    }
+
+    // Bad data could link tweets in a cycle, which would have no root
+    private static void breakCycles(int[] parent) {
+        int n = parent.length;
+        byte[] state = new byte[n];       // 0 not seen, 1 on the current path, 2 done
+        for (int i = 0; i < n; i++) {
+            int j = i;
+            while (j >= 0 && state[j] == 0) {
+                state[j] = 1;
+                j = parent[j];
+            }
+            if (j >= 0 && state[j] == 1)
+                parent[j] = -1;         // j closes a cycle, make it a root
+            for (j = i; j >= 0 && state[j] == 1; j = parent[j])
+                state[j] = 2;
+        }
+    }
+
+
+    public int size() {
+        return tweets.size();
+    }
+
+    public CustomerSupportTweet tweet(int i) {
+        return tweets.get(i);
+    }
+
+    /** Position of the tweet answered by tweet i, -1 if it starts a thread */
+    public int parent(int i) {
+        return parent[i];
+    }
+
+    public int childCount(int i) {
+        return childStart[i + 1] - childStart[i];
+    }
+
+    /** k-th reply of tweet i */
+    public int child(int i, int k) {
+        if (k < 0 || k >= childCount(i))
+            throw new IndexOutOfBoundsException("child " + k + " of " + i);
+        return children[childStart[i] + k];
+    }
+
+    /** Number of threads */
+    public int threadCount() {
+        return roots.length;
+    }
+
+    /** First tweet of thread t */
+    public int root(int t) {
+        return roots[t];
+    }
+
+    /** First tweet of the thread of tweet i */
+    public int rootOf(int i) {
+        while (parent[i] >= 0)
+            i = parent[i];
+        return i;
+    }
+
+    /** Number of tweets in the thread that starts at root */
+    public int threadSize(int root) {
+        int size = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int i = stack[--top];
+            size++;
+            for (int k = childStart[i]; k < childStart[i + 1]; k++) {
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, 2 * top);
+                stack[top++] = children[k];
+            }
+        }
+        return size;
+    }
+
+    /** The thread that starts at root, one tweet per line indented by depth */
+    public String format(int root) {
+        StringBuilder sb = new StringBuilder();
+        format(root, 0, sb);
+        return sb.toString();
+    }
+
+    private void format(int i, int depth, StringBuilder sb) {
+        for (int d = 0; d < depth; d++)
+            sb.append("  ");
+        sb.append(tweets.get(i)).append('\n');
+        for (int k = childStart[i]; k < childStart[i + 1]; k++)
+            format(children[k], depth + 1, sb);
+    }
+
+
+    /**
+     * Latency of the first response of a company to its customers
+     */
+    public static class CompanyLatency {
+        public final String company;
+        private long responses;
+        private long totalSeconds;
+        private final QuantileSketch sketch = new QuantileSketch();
+
+        CompanyLatency(String company) {
+            this.company = company;
+        }
+
+        public long responses() {
+            return responses;
+        }
+
+        /** Mean in seconds */
+        public double mean() {
+            return (double) totalSeconds / responses;
+        }
+
+        /** Approximate quantile in seconds, 0.5 for the median */
+        public double quantile(double q) {
+            return sketch.quantile(q);
+        }
+
+        public String toString() {
+            return String.format("%-20s %8d respuestas, media %8.1f min, mediana %8.1f min", company, responses,
+                    mean() / 60, quantile(0.5) / 60);
+        }
+    }
+
+    /**
+     * For every inbound tweet answered by a company, the time until the
+     * earliest answer, grouped by the company (the author of the answer).
+     * Sorted by number of responses, descending.
+     */
+    public List<CompanyLatency> firstResponseLatency() {
+        StringDictionary companies = new StringDictionary();
+        ArrayList<CompanyLatency> stats = new ArrayList<>();
+        for (int i = 0; i < tweets.size(); i++) {
+            CustomerSupportTweet question = tweets.get(i);
+            if (!question.isInbound())
+                continue;
+            int first = -1;
+            for (int k = childStart[i]; k < childStart[i + 1]; k++) {
+                CustomerSupportTweet answer = tweets.get(children[k]);
+                if (!answer.isInbound() && (first < 0 || answer.getCreatedAt() < tweets.get(first).getCreatedAt()))
+                    first = children[k];
+            }
+            if (first < 0)
+                continue;
+            CustomerSupportTweet answer = tweets.get(first);
+            int c = companies.encode(answer.getAuthorId());
+            if (c == stats.size())
+                stats.add(new CompanyLatency(answer.getAuthorId()));
+            CompanyLatency s = stats.get(c);
+            long seconds = Math.max(0, answer.getCreatedAt() - question.getCreatedAt());
+            s.responses++;
+            s.totalSeconds += seconds;
+            s.sketch.add((int) Math.min(seconds, Integer.MAX_VALUE));
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.responses, a.responses));
+        return stats;
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "twcs.csv";
+
+        Stopwatch sw = new Stopwatch();
+        ArrayList<CustomerSupportTweet> tweets = CustomerSupportTweet.leerTweetsCsv(filename);
+        double tLoad = sw.elapsedTime();
+        sw = new Stopwatch();
+        ConversationThreads threads = build(tweets);
+        double tBuild = sw.elapsedTime();
+        sw = new Stopwatch();
+        List<CompanyLatency> latency = threads.firstResponseLatency();
+        double tLatency = sw.elapsedTime();
+
+        // Verificar los enlaces: cada respuesta es hija de su padre y todas
+        // las conversaciones juntas contienen todos los tweets
+        int total = 0;
+        int largest = -1, largestSize = 0;
+        for (int t = 0; t < threads.threadCount(); t++) {
+            int size = threads.threadSize(threads.root(t));
+            total += size;
+            if (size > largestSize) {
+                largest = threads.root(t);
+                largestSize = size;
+            }
+        }
+        assert total == threads.size();
+        for (int i = 0; i < threads.size(); i++)
+            for (int k = 0; k < threads.childCount(i); k++)
+                assert threads.parent(threads.child(i, k)) == i;
+
+        StdOut.printf("%d tweets, %d conversaciones%n", threads.size(), threads.threadCount());
+        StdOut.printf("Carga %.3f s, enlaces %.3f s, latencias %.3f s%n", tLoad, tBuild, tLatency);
+        for (int i = 0; i < Math.min(10, latency.size()); i++)
+            StdOut.println(latency.get(i));
+        if (largest >= 0) {
+            StdOut.println();
+            StdOut.println("Conversacion mas larga (" + largestSize + " tweets):");
+            StdOut.print(threads.format(largest));
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.SeparateChainingHashST;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Symbol table specialized for counting: keys are mapped to int counts.
+ *
+ * Linear probing over parallel arrays of keys, cached hash codes and int
+ * counts, so there is no node or boxed Integer per key. increment() finds the
+ * slot of the key once and updates the count in place, where the usual
+ * <code>st.put(w, st.get(w) + 1)</code> probes twice and boxes the result.
+ * The cached hash is compared before calling equals() and is reused when the
+ * table is resized.
+ *
+ * The table is kept at most half full. It offers the get/put/contains/keys
+ * operations of the algs4 symbol tables; get() returns 0 for a missing key.
+ */
+public class CountingHashST<Key> {
+
+    private static final int INIT_CAPACITY = 16;
+
+    private Key[] keys;
+    private int[] hashes;
+    private int[] counts;
+    private int n;          // number of keys
+    private int mask;       // capacity - 1, the capacity is a power of 2
+
+    public CountingHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    /**
+     * @param expected number of keys that fit without resizing
+     */
+    public CountingHashST(int expected) {
+        if (expected < 0)
+            throw new IllegalArgumentException("expected must not be negative");
+        int capacity = INIT_CAPACITY;
+        while (capacity < 2L * expected)
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = (Key[]) new Object[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // Spread the high bits, the index only uses the low ones
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Slot of the key, or the empty slot where it would go
+    private int slot(Key key, int h) {
+        int i = h & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public boolean contains(Key key) {
+        if (key == null)
+            throw new IllegalArgumentException("argument to contains() is null");
+        return keys[slot(key, hash(key))] != null;
+    }
+
+    /**
+     * Count of the key, 0 if the key is not in the table
+     */
+    public int get(Key key) {
+        if (key == null)
+            throw new IllegalArgumentException("argument to get() is null");
+        return counts[slot(key, hash(key))];
+    }
+
+    public void put(Key key, int count) {
+        if (key == null)
+            throw new IllegalArgumentException("first argument to put() is null");
+        int h = hash(key);
+        int i = slot(key, h);
+        if (keys[i] == null)
+            i = insert(key, h, i);
+        counts[i] = count;
+    }
+
+    /**
+     * Add one to the count of the key, inserting it if needed
+     * @return the new count
+     */
+    public int increment(Key key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Add delta to the count of the key, inserting it if needed
+     * @return the new count
+     */
+    public int add(Key key, int delta) {
+        if (key == null)
+            throw new IllegalArgumentException("first argument to add() is null");
+        int h = hash(key);
+        int i = slot(key, h);
+        if (keys[i] == null)
+            i = insert(key, h, i);
+        return counts[i] += delta;
+    }
+
+    // Store a new key in the empty slot i, return its slot after a possible resize
+    private int insert(Key key, int h, int i) {
+        if (2 * (n + 1) > keys.length) {
+            resize(2 * keys.length);
+            i = slot(key, h);
+        }
+        keys[i] = key;
+        hashes[i] = h;
+        counts[i] = 0;
+        n++;
+        return i;
+    }
+
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null)
+                continue;
+            int i = oldHashes[j] & mask;
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            hashes[i] = oldHashes[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    /**
+     * Remove the key and its count from the table
+     */
+    public void delete(Key key) {
+        if (key == null)
+            throw new IllegalArgumentException("argument to delete() is null");
+        int i = slot(key, hash(key));
+        if (keys[i] == null)
+            return;
+        keys[i] = null;
+        counts[i] = 0;
+        n--;
+        // reinsert the rest of the cluster, as in LinearProbingHashST
+        i = (i + 1) & mask;
+        while (keys[i] != null) {
+            Key k = keys[i];
+            int h = hashes[i];
+            int c = counts[i];
+            keys[i] = null;
+            counts[i] = 0;
+            int j = slot(k, h);
+            keys[j] = k;
+            hashes[j] = h;
+            counts[j] = c;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Add the counts of other to this table
+     */
+    public void merge(CountingHashST<Key> other) {
+        for (int j = 0; j < other.keys.length; j++) {
+            if (other.keys[j] == null)
+                continue;
+            int h = other.hashes[j];
+            int i = slot(other.keys[j], h);
+            if (keys[i] == null)
+                i = insert(other.keys[j], h, i);
+            counts[i] += other.counts[j];
+        }
+    }
+
+    /**
+     * All the keys, in no particular order
+     */
+    public Iterable<Key> keys() {
+        ArrayList<Key> list = new ArrayList<>(n);
+        for (Key k : keys)
+            if (k != null)
+                list.add(k);
+        return list;
+    }
+
+
+    public static void main(String[] args) {
+        // Comparar con SeparateChainingHashST
+        String[] words = new String[200_000];
+        for (int i = 0; i < words.length; i++)
+            words[i] = "w" + (i * 7919L % 5_003);
+        CountingHashST<String> st = new CountingHashST<>();
+        SeparateChainingHashST<String, Integer> ref = new SeparateChainingHashST<>();
+        for (String w : words) {
+            st.increment(w);
+            ref.put(w, ref.contains(w) ? ref.get(w) + 1 : 1);
+        }
+        assert st.size() == ref.size();
+        for (String w : ref.keys())
+            assert st.get(w) == ref.get(w) : w;
+        assert st.get("no existe") == 0 && !st.contains("no existe");
+        for (int i = 0; i < 5_003; i += 2) {
+            st.delete("w" + i);
+            ref.delete("w" + i);
+        }
+        assert st.size() == ref.size();
+        for (String w : ref.keys())
+            assert st.get(w) == ref.get(w) : w;
+        CountingHashST<String> twice = new CountingHashST<>();
+        twice.merge(st);
+        twice.merge(st);
+        for (String w : st.keys())
+            assert twice.get(w) == 2 * st.get(w);
+
+        // Desempeño sobre un texto
+        if (args.length > 0) {
+            String[] text = new In(args[0]).readAllStrings();
+            for (int i = 0; i < text.length; i++)
+                text[i] = text[i].toLowerCase();
+
+            Stopwatch sw = new Stopwatch();
+            SeparateChainingHashST<String, Integer> sc = new SeparateChainingHashST<>();
+            for (String w : text)
+                sc.put(w, sc.get(w) != null ? sc.get(w) + 1 : 1);
+            StdOut.printf("SeparateChainingHashST: %8.3f s%n", sw.elapsedTime());
+
+            sw = new Stopwatch();
+            CountingHashST<String> cst = new CountingHashST<>();
+            for (String w : text)
+                cst.increment(w);
+            StdOut.printf("CountingHashST        : %8.3f s%n", sw.elapsedTime());
+            assert cst.size() == sc.size();
+        }
+    }
+
+}
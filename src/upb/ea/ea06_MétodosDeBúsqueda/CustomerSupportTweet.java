@@ -1,11 +1,10 @@
 package upb.ea.ea06_MétodosDeBúsqueda;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Date;
 
-import edu.princeton.cs.algs4.In;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.FastDates;
 
 public class CustomerSupportTweet {
 
@@ -17,67 +16,60 @@ public class CustomerSupportTweet {
     private int tweetId;
     private String authorId;
     private boolean inbound;
-    private Date createdAt;
+    private long createdAt;     // seconds since 1970-01-01T00:00Z
     private String text;
     private String responseTweetId;
     private String inResponseToTweetId;
 
+    public int     getTweetId()             { return tweetId; }
+    public String  getAuthorId()            { return authorId; }
+    public boolean isInbound()              { return inbound; }
+    public long    getCreatedAt()           { return createdAt; }
+    public String  getText()                { return text; }
+    public String  getResponseTweetId()     { return responseTweetId; }
+    public String  getInResponseToTweetId() { return inResponseToTweetId; }
+
     /**
      * String representation of a tweet
      */
     public String toString() {
-        return tweetId+" "+authorId+" "+inbound+" "+createdAt+" "+text+" "+responseTweetId+" "+inResponseToTweetId;
+        return tweetId+" "+authorId+" "+inbound+" "+Instant.ofEpochSecond(createdAt)+" "+text+" "+responseTweetId+" "+inResponseToTweetId;
     }
 
     /**
-     * Reads a CSV file with the twits and returns an ArrayList of CustomerSupportTwit objects
+     * Tweet from the current record of the tokenizer, which must have the 7 fields
+     */
+    static CustomerSupportTweet fromFields(CsvTokenizer tok) {
+        CustomerSupportTweet twit = new CustomerSupportTweet();
+        twit.tweetId = tok.parseInt(0);
+        twit.authorId = tok.field(1);
+        twit.inbound = tok.parseBoolean(2);
+        twit.createdAt = FastDates.twitterEpochSecond(tok, tok.start(3), tok.end(3));
+        twit.text = tok.field(4);
+        twit.responseTweetId = tok.field(5);
+        twit.inResponseToTweetId = tok.field(6);
+        return twit;
+    }
+
+    /**
+     * Reads a CSV file with the twits and returns an ArrayList of CustomerSupportTwit objects.
+     * The texts may contain line breaks; see TweetReader to process the file without
+     * keeping all the tweets in memory.
      * @param filename
      * @return ArrayList of CustomerSupportTwit objects
      */
     public static ArrayList<CustomerSupportTweet> leerTweetsCsv(String filename) {
-        int lineNumber = 0;
         ArrayList<CustomerSupportTweet> twits = new ArrayList<CustomerSupportTweet>();
-        In in = new In(filename);
-        String[] fields = in.readLine().split(",");
-        lineNumber++;
-        while (!in.isEmpty()) {
-            lineNumber++;
-            String line = in.readLine();
-            // remove line breaks from line
-            String[] data = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-            // System.out.println(lineNumber+" : "+line);
-            try {
-                if (data.length==7) {
-                    CustomerSupportTweet twit = new CustomerSupportTweet();
-                    twit.tweetId = Integer.parseInt(data[0]);
-                    twit.authorId = data[1];
-                    twit.inbound = Boolean.parseBoolean(data[2]);
-                    twit.createdAt = spf.parse(data[3]);
-                    twit.text = data[4];
-                    if (data.length>5) twit.responseTweetId = data[5];
-                    if (data.length>6) twit.inResponseToTweetId = data[6];
-                    twits.add(twit);
-                }
-                else {
-                    // System.err.println("Invalid line: "+lineNumber+" "+line);
-                }
-    
-            }
-            catch(NumberFormatException e) {
-                System.err.println("Invalid number: "+lineNumber+" "+line);
-            }
-            catch(ParseException e) {
-                System.err.println("Invalid date: "+lineNumber+" "+line);
-            }
-    
+        try (TweetReader reader = new TweetReader(filename)) {
+            while (reader.hasNext())
+                twits.add(reader.next());
+            if (reader.skipped() > 0)
+                System.err.println("Invalid records: " + reader.skipped() + " of " + reader.records());
         }
         return twits;
     }
 
 
-    private static SimpleDateFormat spf = new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy");
-
-
     public static void main(String[] args) {
         String filename = "/home/jmlon/tmp/Datasets/twcs.csv";
         ArrayList<CustomerSupportTweet> twits = CustomerSupportTweet.leerTweetsCsv(filename);
@@ -0,0 +1,336 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.ea06_MétodosDeBúsqueda.DelayTable.Delay;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.LongIndexMap;
+
+/**
+ * Hash based group-by over the columns of a DelayTable.
+ *
+ * The grouping columns are dictionary codes or days, so each one fits in 16
+ * bits and the key of a group is packed in a long. Days are stored relative
+ * to the first day of the table. The rows are split into
+ * partitions that are aggregated in parallel, each one with its own
+ * LongIndexMap from key to group and its own aggregator states; the partial
+ * results are merged at the end. Rows are read directly from the columns, no
+ * DelayRecord or intermediate list is created.
+ *
+ * Example: mean arrival delay per carrier per day
+ * <pre>
+ *   new DelayGroupBy(table, Key.CARRIER, Key.DAY).aggregate(Delay.ARR_DELAY, Aggregator.mean());
+ * </pre>
+ */
+public class DelayGroupBy {
+
+    /**
+     * Grouping columns. DAY takes any dates, but the table can span at most
+     * 65536 days (about 179 years) from its first to its last day, since the
+     * days are coded in 16 bits relative to the first one.
+     */
+    public enum Key { CARRIER, ORIGIN, DEST, DAY }
+
+    private final DelayTable table;
+    private final Key[] keys;
+    private int partitions = 4 * Runtime.getRuntime().availableProcessors();
+
+    public DelayGroupBy(DelayTable table, Key... keys) {
+        if (keys.length == 0 || keys.length > 4)
+            throw new IllegalArgumentException("Between 1 and 4 grouping keys");
+        this.table = table;
+        this.keys = keys.clone();
+    }
+
+    /**
+     * Number of partitions aggregated in parallel, 1 for a sequential scan
+     */
+    public DelayGroupBy partitions(int p) {
+        if (p < 1)
+            throw new IllegalArgumentException("partitions must be positive");
+        partitions = p;
+        return this;
+    }
+
+
+    // Code of key k in the given row, 16 bits; days are relative to dayBase
+    private long code(Key k, int row, int dayBase) {
+        switch (k) {
+            case CARRIER: return table.carrier[row] & 0xFFFF;
+            case ORIGIN:  return table.origin[row] & 0xFFFF;
+            case DEST:    return table.dest[row] & 0xFFFF;
+            default:      return table.epochDay[row] - dayBase;
+        }
+    }
+
+    private long packedKey(int row, int dayBase) {
+        long key = 0;
+        for (Key k : keys)
+            key = (key << 16) | code(k, row, dayBase);
+        return key;
+    }
+
+    /**
+     * First day of the first n rows, the base of the DAY codes
+     * @throws IllegalArgumentException if the rows span more than 65536 days
+     */
+    private int dayBase(int n) {
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int r = 0; r < n; r++) {
+            min = Math.min(min, table.epochDay[r]);
+            max = Math.max(max, table.epochDay[r]);
+        }
+        if (n > 0 && (long) max - min > 0xFFFF)
+            throw new IllegalArgumentException("Cannot group by DAY: the table spans more than 65536 days, from "
+                    + LocalDate.ofEpochDay(min) + " to " + LocalDate.ofEpochDay(max));
+        return n == 0 ? 0 : min;
+    }
+
+
+    /**
+     * Groups and aggregator states of a range of rows
+     */
+    private static class Partial {
+        final LongIndexMap groups = new LongIndexMap(256);
+        final ArrayList<Object[]> states = new ArrayList<>();
+
+        Object[] states(long key, Aggregator<?>[] aggs) {
+            int g = groups.add(key);
+            if (g == states.size()) {
+                Object[] s = new Object[aggs.length];
+                for (int a = 0; a < aggs.length; a++)
+                    s[a] = aggs[a].create();
+                states.add(s);
+            }
+            return states.get(g);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> void add(Aggregator<S> agg, Object state, int value) {
+        agg.add((S) state, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> void merge(Aggregator<S> agg, Object into, Object other) {
+        agg.merge((S) into, (S) other);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S> double result(Aggregator<S> agg, Object state) {
+        return agg.result((S) state);
+    }
+
+    private Partial aggregate(int from, int to, int column, Aggregator<?>[] aggs, int dayBase) {
+        Partial p = new Partial();
+        int[] values = table.delays[column];
+        long[] nulls = table.nulls[column];
+        for (int r = from; r < to; r++) {
+            if ((nulls[r >>> 6] & (1L << r)) != 0)
+                continue;
+            Object[] s = p.states(packedKey(r, dayBase), aggs);
+            for (int a = 0; a < aggs.length; a++)
+                add(aggs[a], s[a], values[r]);
+        }
+        return p;
+    }
+
+
+    /**
+     * Aggregate the non null values of a delay column per group
+     * @throws IllegalArgumentException if grouping by DAY and the table spans
+     *         more than 65536 days
+     */
+    public Result aggregate(Delay column, Aggregator<?>... aggs) {
+        int n = table.size();
+        int dayBase = Arrays.asList(keys).contains(Key.DAY) ? dayBase(n) : 0;
+        int parts = Math.max(1, Math.min(partitions, n / 1024));
+        List<Partial> partials = IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(i -> aggregate((int) ((long) n * i / parts), (int) ((long) n * (i + 1) / parts),
+                        column.ordinal(), aggs, dayBase))
+                .collect(Collectors.toList());
+
+        // merge the partitions in order
+        Partial total = partials.get(0);
+        for (int i = 1; i < partials.size(); i++) {
+            Partial p = partials.get(i);
+            for (int g = 0; g < p.groups.size(); g++) {
+                Object[] into = total.states(p.groups.key(g), aggs);
+                Object[] other = p.states.get(g);
+                for (int a = 0; a < aggs.length; a++)
+                    merge(aggs[a], into[a], other[a]);
+            }
+        }
+
+        int groups = total.groups.size();
+        long[] groupKeys = new long[groups];
+        double[][] values = new double[groups][aggs.length];
+        for (int g = 0; g < groups; g++) {
+            groupKeys[g] = total.groups.key(g);
+            for (int a = 0; a < aggs.length; a++)
+                values[g][a] = result(aggs[a], total.states.get(g)[a]);
+        }
+        String[] names = new String[aggs.length];
+        for (int a = 0; a < aggs.length; a++)
+            names[a] = column.name().toLowerCase() + "." + aggs[a].name();
+        return new Result(groupKeys, values, names, dayBase);
+    }
+
+
+    /**
+     * Result of an aggregation: one row per group, one value per aggregator
+     */
+    public class Result {
+        private final long[] groupKeys;
+        private final double[][] values;
+        private final String[] names;
+        private final int dayBase;
+
+        private Result(long[] keys, double[][] values, String[] names, int dayBase) {
+            this.groupKeys = keys;
+            this.values = values;
+            this.names = names;
+            this.dayBase = dayBase;
+        }
+
+        public int size() {
+            return groupKeys.length;
+        }
+
+        /** Value of aggregator a for group g */
+        public double value(int g, int a) {
+            return values[g][a];
+        }
+
+        /** Code of the given grouping key for group g (dictionary code or epoch day) */
+        public int code(int g, Key k) {
+            int shift = 0;
+            for (int i = keys.length - 1; i >= 0; i--, shift += 16)
+                if (keys[i] == k) {
+                    int c = (int) ((groupKeys[g] >>> shift) & 0xFFFF);
+                    return k == Key.DAY ? dayBase + c : c;
+                }
+            throw new IllegalArgumentException("Not a grouping key: " + k);
+        }
+
+        /** Readable description of group g, e.g. "DL 2023-01-05" */
+        public String label(int g) {
+            StringBuilder sb = new StringBuilder();
+            for (Key k : keys) {
+                if (sb.length() > 0)
+                    sb.append(' ');
+                int c = code(g, k);
+                switch (k) {
+                    case CARRIER: sb.append(table.carriers.decode(c)); break;
+                    case ORIGIN:
+                    case DEST:    sb.append(table.airports.decode(c)); break;
+                    default:      sb.append(LocalDate.ofEpochDay(c)); break;
+                }
+            }
+            return sb.toString();
+        }
+
+        /** Groups sorted by the value of aggregator a */
+        public int[] orderBy(int a, boolean descending) {
+            Comparator<Integer> c = Comparator.comparingDouble(g -> values[g][a]);
+            return IntStream.range(0, groupKeys.length).boxed()
+                    .sorted(descending ? c.reversed() : c)
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Groups sorted by label */
+        public int[] orderByLabel() {
+            return IntStream.range(0, groupKeys.length).boxed()
+                    .sorted(Comparator.comparing(this::label))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Table with the given groups */
+        public String format(int[] groups) {
+            StringBuilder sb = new StringBuilder(String.format("%-20s", Arrays.toString(keys)));
+            for (String name : names)
+                sb.append(String.format(" %16s", name));
+            sb.append('\n');
+            for (int g : groups) {
+                sb.append(String.format("%-20s", label(g)));
+                for (double v : values[g])
+                    sb.append(String.format(" %16.2f", v));
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return format(orderByLabel());
+        }
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "548634059_T_ONTIME_REPORTING.csv";
+        DelayTable table = DelayTable.readCSVFile(filename);
+        StdOut.println("Registros: " + table.size());
+
+        // Retraso promedio de llegada por aerolinea por dia
+        Stopwatch sw = new Stopwatch();
+        Result perCarrierDay = new DelayGroupBy(table, Key.CARRIER, Key.DAY)
+                .aggregate(Delay.ARR_DELAY, Aggregator.count(), Aggregator.mean());
+        double t = sw.elapsedTime();
+        int[] order = perCarrierDay.orderByLabel();
+        StdOut.print(perCarrierDay.format(Arrays.copyOf(order, Math.min(10, order.length))));
+        StdOut.printf("%d grupos en %.3f s%n%n", perCarrierDay.size(), t);
+
+        // Percentil 95 del retraso de salida por aeropuerto de origen
+        sw = new Stopwatch();
+        Result perOrigin = new DelayGroupBy(table, Key.ORIGIN)
+                .aggregate(Delay.DEP_DELAY, Aggregator.count(), Aggregator.min(), Aggregator.max(),
+                        Aggregator.quantile(0.5), Aggregator.quantile(0.95));
+        t = sw.elapsedTime();
+        order = perOrigin.orderBy(4, true);
+        StdOut.print(perOrigin.format(Arrays.copyOf(order, Math.min(10, order.length))));
+        StdOut.printf("%d grupos en %.3f s%n%n", perOrigin.size(), t);
+
+        // Verificar contra un recorrido secuencial simple
+        Result sequential = new DelayGroupBy(table, Key.CARRIER, Key.DAY).partitions(1)
+                .aggregate(Delay.ARR_DELAY, Aggregator.count(), Aggregator.mean());
+        assert sequential.size() == perCarrierDay.size();
+        for (int g = 0; g < sequential.size(); g++) {
+            assert sequential.label(g).equals(perCarrierDay.label(g));
+            assert sequential.value(g, 0) == perCarrierDay.value(g, 0);
+            assert Math.abs(sequential.value(g, 1) - perCarrierDay.value(g, 1)) < 1e-9;
+        }
+
+        // Los dias antes de 1970 no se confunden con los de 2149
+        DelayTable days = new DelayTable();
+        CsvTokenizer tok = new CsvTokenizer();
+        for (String fecha : new String[] { "1969-12-31", "1970-01-01", "2149-06-05", "1969-12-31" }) {
+            tok.parse(fecha.substring(0, 4) + "," + fecha + ",AA,19805,1,1,BOG,Bogota,DC,2,ATL,Atlanta,GA,0,5,5,,,,,");
+            days.add(tok);
+        }
+        Result perDay = new DelayGroupBy(days, Key.DAY).aggregate(Delay.ARR_DELAY, Aggregator.count());
+        int[] porDia = perDay.orderByLabel();
+        assert perDay.size() == 3 : perDay;
+        assert perDay.label(porDia[0]).equals("1969-12-31") && perDay.value(porDia[0], 0) == 2 : perDay;
+        assert perDay.label(porDia[2]).equals("2149-06-05") && perDay.value(porDia[2], 0) == 1 : perDay;
+        assert perDay.code(porDia[0], Key.DAY) == -1 : perDay;
+        tok.parse("2149,2149-06-07,AA,19805,1,1,BOG,Bogota,DC,2,ATL,Atlanta,GA,0,5,5,,,,,");
+        days.add(tok);
+        try {
+            new DelayGroupBy(days, Key.DAY).aggregate(Delay.ARR_DELAY, Aggregator.count());
+            assert false : "More than 65536 days";
+        } catch (IllegalArgumentException e) {
+            StdOut.println(e.getMessage());
+        }
+    }
+
+}
@@ -1,12 +1,22 @@
 package upb.ea.ea06_MétodosDeBúsqueda;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.ExternalSort;
+import upb.ea.util.FastDates;
+import upb.ea.util.RadixSort;
+import upb.ea.util.RecordCodec;
 
 
 // Fields of a DelayRecord
@@ -14,7 +24,7 @@ import edu.princeton.cs.algs4.StdOut;
 public class DelayRecord {
 
     private int year;
-    private Date date;
+    private int epochDay;   // days since 1970-01-01
     private String carrier;
     private int carrierId;
     private int flightNumber;
@@ -35,13 +45,26 @@ public class DelayRecord {
     private Integer securityDelay;
     private Integer lateAircraftDelay;
 
+    private DelayRecord() {
+    }
+
     // Constructor that initializes all the fields
     public DelayRecord(int year, String date, String carrier, int carrierId, int flightNumber, int originAirportId,
             String origin, String originCity, String originState, int destAirportId, String dest, String destCity,
             String destState, String depDelay, String arrDelay, String arrDelayNew, String carrierDelay,
-            String weatherDelay, String nasDelay, String securityDelay, String lateAircraftDelay) throws ParseException {
+            String weatherDelay, String nasDelay, String securityDelay, String lateAircraftDelay) {
+        this(year, FastDates.isoEpochDay(date), carrier, carrierId, flightNumber, originAirportId, origin, originCity,
+                originState, destAirportId, dest, destCity, destState, depDelay, arrDelay, arrDelayNew, carrierDelay,
+                weatherDelay, nasDelay, securityDelay, lateAircraftDelay);
+    }
+
+    // Same as above, with the date already decoded
+    DelayRecord(int year, int epochDay, String carrier, int carrierId, int flightNumber, int originAirportId,
+            String origin, String originCity, String originState, int destAirportId, String dest, String destCity,
+            String destState, String depDelay, String arrDelay, String arrDelayNew, String carrierDelay,
+            String weatherDelay, String nasDelay, String securityDelay, String lateAircraftDelay) {
         this.year = year;
-        this.date = df.parse(date);
+        this.epochDay = epochDay;
         this.carrier = carrier;
         this.carrierId = carrierId;
         this.flightNumber = flightNumber;
@@ -64,6 +87,112 @@ public class DelayRecord {
     }
 
 
+    public int     getYear()              { return year; }
+    public int     getEpochDay()          { return epochDay; }
+    public LocalDate getDate()            { return LocalDate.ofEpochDay(epochDay); }
+    public String  getCarrier()           { return carrier; }
+    public int     getCarrierId()         { return carrierId; }
+    public int     getFlightNumber()      { return flightNumber; }
+    public int     getOriginAirportId()   { return originAirportId; }
+    public String  getOrigin()            { return origin; }
+    public String  getOriginCity()        { return originCity; }
+    public String  getOriginState()       { return originState; }
+    public int     getDestAirportId()     { return destAirportId; }
+    public String  getDest()              { return dest; }
+    public String  getDestCity()          { return destCity; }
+    public String  getDestState()         { return destState; }
+    public Integer getDepDelay()          { return depDelay; }
+    public Integer getArrDelay()          { return arrDelay; }
+    public Integer getArrDelayNew()       { return arrDelayNew; }
+    public Integer getCarrierDelay()      { return carrierDelay; }
+    public Integer getWeatherDelay()      { return weatherDelay; }
+    public Integer getNasDelay()          { return nasDelay; }
+    public Integer getSecurityDelay()     { return securityDelay; }
+    public Integer getLateAircraftDelay() { return lateAircraftDelay; }
+
+
+    /** Chronological order, then by carrier and by arrival delay (nulls first) */
+    public static final Comparator<DelayRecord> BY_DATE_CARRIER_DELAY = Comparator
+            .comparingInt(DelayRecord::getEpochDay)
+            .thenComparing(DelayRecord::getCarrier)
+            .thenComparing(DelayRecord::getArrDelay, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Radix sort key monotone with BY_DATE_CARRIER_DELAY: 16 bits of the
+     * date, the first two chars of the carrier (8 bits each) and 32 bits of
+     * the arrival delay (null first). Values that don't fit are clamped, so
+     * equal keys must be sorted with the comparator.
+     */
+    public static long radixKey(DelayRecord r) {
+        long day = Math.max(-0x8000, Math.min(0x7FFF, r.epochDay)) + 0x8000;
+        long carrier = 0;
+        for (int i = 0; i < 2; i++)
+            carrier = carrier << 8 | (i < r.carrier.length() ? Math.min(0xFF, r.carrier.charAt(i)) : 0);
+        long delay = r.arrDelay == null ? 0 : Math.max(Integer.MIN_VALUE + 1, r.arrDelay) ^ 0x80000000;
+        return (day << 48 | carrier << 32 | delay & 0xFFFFFFFFL) ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Binary encoding of the records for ExternalSort
+     */
+    public static final RecordCodec<DelayRecord> CODEC = new RecordCodec<DelayRecord>() {
+        public int size(DelayRecord r) {
+            int size = 6 * 4;
+            for (String s : r.strings())
+                size += RecordCodec.stringSize(s);
+            for (Integer d : r.delays())
+                size += RecordCodec.integerSize(d);
+            return size;
+        }
+
+        public void write(DelayRecord r, ByteBuffer out) {
+            out.putInt(r.year).putInt(r.epochDay).putInt(r.carrierId).putInt(r.flightNumber)
+                    .putInt(r.originAirportId).putInt(r.destAirportId);
+            for (String s : r.strings())
+                RecordCodec.putString(out, s);
+            for (Integer d : r.delays())
+                RecordCodec.putInteger(out, d);
+        }
+
+        public DelayRecord read(ByteBuffer in) {
+            DelayRecord r = new DelayRecord();
+            r.year = in.getInt();
+            r.epochDay = in.getInt();
+            r.carrierId = in.getInt();
+            r.flightNumber = in.getInt();
+            r.originAirportId = in.getInt();
+            r.destAirportId = in.getInt();
+            r.carrier = RecordCodec.getString(in);
+            r.origin = RecordCodec.getString(in);
+            r.originCity = RecordCodec.getString(in);
+            r.originState = RecordCodec.getString(in);
+            r.dest = RecordCodec.getString(in);
+            r.destCity = RecordCodec.getString(in);
+            r.destState = RecordCodec.getString(in);
+            r.depDelay = RecordCodec.getInteger(in);
+            r.arrDelay = RecordCodec.getInteger(in);
+            r.arrDelayNew = RecordCodec.getInteger(in);
+            r.carrierDelay = RecordCodec.getInteger(in);
+            r.weatherDelay = RecordCodec.getInteger(in);
+            r.nasDelay = RecordCodec.getInteger(in);
+            r.securityDelay = RecordCodec.getInteger(in);
+            r.lateAircraftDelay = RecordCodec.getInteger(in);
+            return r;
+        }
+    };
+
+    // String fields in the order of CODEC
+    private String[] strings() {
+        return new String[] { carrier, origin, originCity, originState, dest, destCity, destState };
+    }
+
+    // Delay fields in the order of CODEC
+    private Integer[] delays() {
+        return new Integer[] { depDelay, arrDelay, arrDelayNew, carrierDelay, weatherDelay, nasDelay, securityDelay,
+                lateAircraftDelay };
+    }
+
+
     // Parse String to Integer, return null if the string is empty
     private static Integer parseInteger(String s) {
         if (s.isEmpty()) {
@@ -74,63 +203,138 @@ public class DelayRecord {
     }
 
 
-    // For parsing dates in the format "yyyy-MM-dd"
-    private static SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+    // Create a DelayRecord from the current record of the tokenizer
+    // The date "yyyy-MM-dd" is decoded in place, it is safe to call from several threads
+    static DelayRecord fromFields(CsvTokenizer tok) {
+        return new DelayRecord(
+                tok.parseInt(0), // year
+                FastDates.isoEpochDay(tok, tok.start(1), tok.end(1)), // date
+                tok.field(2), // carrier
+                tok.parseInt(3), // carrierId
+                tok.parseInt(4), // flightNumber
+                tok.parseInt(5), // originAirportId
+                tok.field(6), // origin
+                tok.field(7), // originCity
+                tok.field(8), // originState
+                tok.parseInt(9), // destAirportId
+                tok.field(10), // dest
+                tok.field(11), // destCity
+                tok.field(12), // destState
+                tok.field(13), // depDelay
+                tok.field(14), // arrDelay
+                tok.field(15), // arrDelayNew
+                tok.field(16), // carrierDelay
+                tok.field(17), // weatherDelay
+                tok.field(18), // nasDelay
+                tok.field(19), // securityDelay
+                tok.field(20) // lateAircraftDelay
+        );
+    }
 
     
     public static ArrayList<DelayRecord> readCSVFile(String filename) {
-        int lines=0;
         ArrayList<DelayRecord> delays = new ArrayList<>();
-        In in = new In(filename);
-        in.readLine();
-        while (in.hasNextLine()) {
-            lines++;
-            // read a line an create a DelayRecord instance
-            String line = in.readLine();
-            // split comma separated fields, except within quotes
-            String[] fields = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-            // StdOut.println(lines+" : "+fields[1]+","+fields[3]+","+fields[4]+","+fields[5]+","+fields[9]);
-            try {
-                DelayRecord delay = new DelayRecord(
-                        Integer.parseInt(fields[0]), // year
-                        fields[1], // date
-                        fields[2], // carrier
-                        Integer.parseInt(fields[3]), // carrierId
-                        Integer.parseInt(fields[4]), // flightNumber
-                        Integer.parseInt(fields[5]), // originAirportId
-                        fields[6], // origin
-                        fields[7], // originCity
-                        fields[8], // originState
-                        Integer.parseInt(fields[9]), // destAirportId
-                        fields[10], // dest
-                        fields[11], // destCity
-                        fields[12], // destState
-                        fields[13], // depDelay
-                        fields[14], // arrDelay
-                        fields[15], // arrDelayNew
-                        fields[16], // carrierDelay
-                        fields[17], // weatherDelay
-                        fields[18], // nasDelay
-                        fields[19], // securityDelay
-                        fields[20] // lateAircraftDelay
-                );
-                delays.add(delay);
-            } catch (ParseException e) {
-                System.out.println("Error reading line: " + line);
-            }
+        try (Reader reader = new Reader(filename)) {
+            while (reader.hasNext())
+                delays.add(reader.next());
         }
-        in.close();
         return delays;
     }
 
+    /**
+     * Records of the CSV file read one at a time, for input that does not
+     * fit in memory. Lines with invalid dates are reported and skipped.
+     */
+    public static final class Reader implements Iterator<DelayRecord>, AutoCloseable {
+        private final In in;
+        private final CsvTokenizer tok = new CsvTokenizer();
+        private DelayRecord next;
 
-    public static void main(String[] args) {
-        // Leer el archivo CSV y crear una lista de DelayRecord
-        String filename = "548634059_T_ONTIME_REPORTING.csv";
-        ArrayList<DelayRecord> delays = readCSVFile(filename);
-        StdOut.println("Number of records: " + delays.size());
+        public Reader(String filename) {
+            in = new In(filename);
+            in.readLine();          // header
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && in.hasNextLine()) {
+                // split comma separated fields, except within quotes
+                String line = in.readLine();
+                tok.parse(line);
+                try {
+                    next = fromFields(tok);
+                } catch (DateTimeParseException e) {
+                    System.out.println("Error reading line: " + line);
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public DelayRecord next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            DelayRecord r = next;
+            advance();
+            return r;
+        }
+
+        public void close() {
+            in.close();
+        }
     }
 
 
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "548634059_T_ONTIME_REPORTING.csv";
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 16L << 20;
+        int sample = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        // Ordenar por fecha, aerolinea y retraso con poca memoria (ver ExternalSort):
+        // los registros se leen uno a uno y solo se revisa el orden de la salida
+        ExternalSort<DelayRecord> sorter = new ExternalSort<>(CODEC, BY_DATE_CARRIER_DELAY, budget);
+        Stopwatch sw = new Stopwatch();
+        long[] count = new long[1];
+        DelayRecord[] last = new DelayRecord[1];
+        try (Reader reader = new Reader(filename)) {
+            sorter.sort(reader, r -> {
+                assert last[0] == null || BY_DATE_CARRIER_DELAY.compare(last[0], r) <= 0;
+                last[0] = r;
+                count[0]++;
+            });
+        }
+        StdOut.printf("Ordenamiento externo: %d registros, %d runs, %d pasadas, %.3f s%n", count[0], sorter.runs(),
+                sorter.passes(), sw.elapsedTime());
+
+        // En memoria, solo con los primeros registros: los tres ordenamientos son estables
+        ArrayList<DelayRecord> delays = new ArrayList<>();
+        try (Reader reader = new Reader(filename)) {
+            while (reader.hasNext() && delays.size() < sample)
+                delays.add(reader.next());
+        }
+        ArrayList<DelayRecord> sorted = new ArrayList<>(delays.size());
+        sorter.sort(delays.iterator(), sorted::add);
+
+        ArrayList<DelayRecord> expected = new ArrayList<>(delays);
+        sw = new Stopwatch();
+        expected.sort(BY_DATE_CARRIER_DELAY);
+        StdOut.printf("List.sort de %d registros: %.3f s%n", delays.size(), sw.elapsedTime());
+        assert sorted.size() == expected.size();
+        for (int i = 0; i < sorted.size(); i++) {
+            DelayRecord a = sorted.get(i), b = expected.get(i);
+            assert a.getFlightNumber() == b.getFlightNumber() && a.getOriginCity().equals(b.getOriginCity());
+            assert Objects.equals(a.getLateAircraftDelay(), b.getLateAircraftDelay());
+        }
+
+        // Ordenar por claves empacadas: deben dar los mismos objetos que List.sort
+        ArrayList<DelayRecord> radix = new ArrayList<>(delays);
+        sw = new Stopwatch();
+        RadixSort.sort(radix, DelayRecord::radixKey, BY_DATE_CARRIER_DELAY);
+        StdOut.printf("RadixSort de %d registros: %.3f s%n", delays.size(), sw.elapsedTime());
+        assert radix.equals(expected);
+    }
 
 }
@@ -0,0 +1,107 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.FileChunks;
+
+/**
+ * Parallel loader for the on-time-reporting CSV files.
+ *
+ * The file is memory mapped and split into chunks that start right after a
+ * line break. Each chunk is parsed by a worker thread with its own
+ * CsvTokenizer straight from the mapped bytes, and the partial lists are
+ * appended in file order, so the result is the same list readCSVFile returns.
+ *
+ * There are more chunks than threads so that a slow chunk does not leave the
+ * other cores idle. Chunks are aligned on line breaks, which assumes that no
+ * quoted field contains a line break (true for the BTS extracts).
+ */
+public class DelayRecordLoader {
+
+    // Default size of the chunk parsed by each task
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+
+    public static ArrayList<DelayRecord> load(String filename) {
+        return load(filename, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+
+    /**
+     * Load the records of the file using the given number of threads
+     * @param filename CSV file with a header line
+     * @param threads number of worker threads
+     * @param chunkSize approximate number of bytes parsed by each task
+     * @return the records in the same order as in the file
+     */
+    public static ArrayList<DelayRecord> load(String filename, int threads, int chunkSize) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        Path path = Paths.get(filename);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // merge in file order
+            List<ArrayList<DelayRecord>> lists = FileChunks.parallel(ch, chunkSize, threads,
+                    DelayRecordLoader::parseChunk);
+            int total = 0;
+            for (ArrayList<DelayRecord> l : lists)
+                total += l.size();
+            ArrayList<DelayRecord> delays = new ArrayList<>(total);
+            for (ArrayList<DelayRecord> l : lists)
+                delays.addAll(l);
+            return delays;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    // Parse the lines in [from, to) of the file
+    private static ArrayList<DelayRecord> parseChunk(FileChannel ch, long from, long to) throws IOException {
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        ArrayList<DelayRecord> delays = new ArrayList<>();
+        CsvTokenizer tok = new CsvTokenizer();
+        tok.reset(buf, 0, buf.limit());
+        while (tok.next()) {
+            if (tok.fieldCount() == 1 && tok.isEmpty(0))
+                continue;           // blank line
+            try {
+                delays.add(DelayRecord.fromFields(tok));
+            } catch (DateTimeParseException e) {
+                System.out.println("Error reading line at byte " + (from + tok.recordStart()));
+            }
+        }
+        return delays;
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "548634059_T_ONTIME_REPORTING.csv";
+
+        Stopwatch sw = new Stopwatch();
+        ArrayList<DelayRecord> sequential = DelayRecord.readCSVFile(filename);
+        StdOut.printf("readCSVFile : %8d registros %8.3f s%n", sequential.size(), sw.elapsedTime());
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            sw = new Stopwatch();
+            ArrayList<DelayRecord> parallel = load(filename, threads, DEFAULT_CHUNK_SIZE);
+            StdOut.printf("%2d hilos    : %8d registros %8.3f s%n", threads, parallel.size(), sw.elapsedTime());
+            assert parallel.size() == sequential.size();
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.StringDictionary;
+
+/**
+ * Binary snapshot of a DelayTable, so that the CSV file and its dates are
+ * parsed only once.
+ *
+ * Layout of the file (little endian):
+ * <pre>
+ *   int   magic "DLYT"
+ *   int   version
+ *   int   rows
+ *   long  bytes of the dictionary section
+ *   dictionary section: carriers, airports, cities, states, each one as
+ *         int count followed by count times (int length, UTF-8 bytes)
+ *   column blocks, each one starting at a multiple of 8 bytes:
+ *         year short[], date int[], carrier short[], carrierId int[],
+ *         flightNumber int[], originAirportId int[], origin short[],
+ *         originCity short[], originState short[], destAirportId int[],
+ *         dest short[], destCity short[], destState short[], and for each
+ *         delay int[] values followed by long[] null bitmap
+ * </pre>
+ * The reader maps each block with FileChannel.map and copies it with a bulk
+ * get into the arrays of the table, so loading costs about as much as
+ * reading the file from the page cache.
+ */
+public class DelaySnapshot {
+
+    static final int MAGIC = 0x444C5954;      // "DLYT"
+    static final int VERSION = 1;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int HEADER = 20;
+    private static final int BUFFER = 1 << 20;
+
+
+    /**
+     * Write the table to the given file, replacing it if it exists
+     */
+    public static void write(DelayTable t, String filename) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(ch);
+            byte[] dictionaries = encode(t.carriers, t.airports, t.cities, t.states);
+            out.buf.putInt(MAGIC).putInt(VERSION).putInt(t.n).putLong(dictionaries.length);
+            out.put(dictionaries);
+            int n = t.n;
+            out.put(t.year, n);
+            out.put(t.epochDay, n);
+            out.put(t.carrier, n);
+            out.put(t.carrierId, n);
+            out.put(t.flightNumber, n);
+            out.put(t.originAirportId, n);
+            out.put(t.origin, n);
+            out.put(t.originCity, n);
+            out.put(t.originState, n);
+            out.put(t.destAirportId, n);
+            out.put(t.dest, n);
+            out.put(t.destCity, n);
+            out.put(t.destState, n);
+            for (int d = 0; d < t.delays.length; d++) {
+                out.put(t.delays[d], n);
+                out.put(t.nulls[d], words(n));
+            }
+            out.flush();
+        }
+    }
+
+    private static int words(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    private static byte[] encode(StringDictionary... dicts) {
+        int size = 0;
+        byte[][][] strings = new byte[dicts.length][][];
+        for (int i = 0; i < dicts.length; i++) {
+            strings[i] = new byte[dicts[i].size()][];
+            size += 4;
+            for (int c = 0; c < dicts[i].size(); c++) {
+                strings[i][c] = dicts[i].decode(c).getBytes(StandardCharsets.UTF_8);
+                size += 4 + strings[i][c].length;
+            }
+        }
+        ByteBuffer b = ByteBuffer.allocate(size).order(ORDER);
+        for (byte[][] dict : strings) {
+            b.putInt(dict.length);
+            for (byte[] s : dict)
+                b.putInt(s.length).put(s);
+        }
+        return b.array();
+    }
+
+
+    /**
+     * Writes through a direct buffer, padding every column to 8 bytes
+     */
+    private static class Output {
+        final FileChannel ch;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER).order(ORDER);
+        long written;
+
+        Output(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining())
+                written += ch.write(buf);
+            buf.clear();
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes)
+                flush();
+        }
+
+        void align() throws IOException {
+            ensure(8);
+            while ((written + buf.position()) % 8 != 0)
+                buf.put((byte) 0);
+        }
+
+        void put(byte[] a) throws IOException {
+            for (int i = 0; i < a.length; ) {
+                ensure(1);
+                int k = Math.min(buf.remaining(), a.length - i);
+                buf.put(a, i, k);
+                i += k;
+            }
+        }
+
+        void put(short[] a, int n) throws IOException {
+            align();
+            for (int i = 0; i < n; ) {
+                ensure(2);
+                int k = Math.min(buf.remaining() / 2, n - i);
+                buf.asShortBuffer().put(a, i, k);
+                buf.position(buf.position() + 2 * k);
+                i += k;
+            }
+        }
+
+        void put(int[] a, int n) throws IOException {
+            align();
+            for (int i = 0; i < n; ) {
+                ensure(4);
+                int k = Math.min(buf.remaining() / 4, n - i);
+                buf.asIntBuffer().put(a, i, k);
+                buf.position(buf.position() + 4 * k);
+                i += k;
+            }
+        }
+
+        void put(long[] a, int n) throws IOException {
+            align();
+            for (int i = 0; i < n; ) {
+                ensure(8);
+                int k = Math.min(buf.remaining() / 8, n - i);
+                buf.asLongBuffer().put(a, i, k);
+                buf.position(buf.position() + 8 * k);
+                i += k;
+            }
+        }
+    }
+
+
+    /**
+     * Load a table written by write()
+     * @throws IOException if the file cannot be read or is not a snapshot of
+     * a supported version
+     */
+    public static DelayTable read(String filename) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (ch.size() < HEADER)
+                throw new IOException("Not a DelayTable snapshot: " + filename);
+            MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            header.order(ORDER);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a DelayTable snapshot: " + filename);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version " + version + ": " + filename);
+            int n = header.getInt();
+            long dictBytes = header.getLong();
+
+            ByteBuffer dict = ch.map(FileChannel.MapMode.READ_ONLY, HEADER, dictBytes).order(ORDER);
+            StringDictionary carriers = decode(dict);
+            StringDictionary airports = decode(dict);
+            StringDictionary cities = decode(dict);
+            StringDictionary states = decode(dict);
+
+            DelayTable t = new DelayTable(Math.max(n, 1), carriers, airports, cities, states);
+            Input in = new Input(ch, HEADER + dictBytes);
+            in.get(t.year, n);
+            in.get(t.epochDay, n);
+            in.get(t.carrier, n);
+            in.get(t.carrierId, n);
+            in.get(t.flightNumber, n);
+            in.get(t.originAirportId, n);
+            in.get(t.origin, n);
+            in.get(t.originCity, n);
+            in.get(t.originState, n);
+            in.get(t.destAirportId, n);
+            in.get(t.dest, n);
+            in.get(t.destCity, n);
+            in.get(t.destState, n);
+            for (int d = 0; d < t.delays.length; d++) {
+                in.get(t.delays[d], n);
+                in.get(t.nulls[d], words(n));
+            }
+            t.n = n;
+            return t;
+        }
+    }
+
+    private static StringDictionary decode(ByteBuffer b) {
+        StringDictionary dict = new StringDictionary();
+        int count = b.getInt();
+        byte[] s = new byte[64];
+        for (int c = 0; c < count; c++) {
+            int len = b.getInt();
+            if (len > s.length)
+                s = new byte[len];
+            b.get(s, 0, len);
+            dict.encode(new String(s, 0, len, StandardCharsets.UTF_8));
+        }
+        return dict;
+    }
+
+    /**
+     * Maps the column blocks one after the other
+     */
+    private static class Input {
+        final FileChannel ch;
+        long pos;
+
+        Input(FileChannel ch, long pos) {
+            this.ch = ch;
+            this.pos = pos;
+        }
+
+        private ByteBuffer map(long bytes) throws IOException {
+            pos = (pos + 7) & ~7L;
+            if (pos + bytes > ch.size())
+                throw new IOException("Truncated snapshot");
+            ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, pos, bytes).order(ORDER);
+            pos += bytes;
+            return b;
+        }
+
+        void get(short[] a, int n) throws IOException {
+            map(2L * n).asShortBuffer().get(a, 0, n);
+        }
+
+        void get(int[] a, int n) throws IOException {
+            map(4L * n).asIntBuffer().get(a, 0, n);
+        }
+
+        void get(long[] a, int n) throws IOException {
+            map(8L * n).asLongBuffer().get(a, 0, n);
+        }
+    }
+
+
+    // True if both tables have the same rows and dictionaries
+    static boolean sameContents(DelayTable a, DelayTable b) {
+        int n = a.n;
+        if (n != b.n)
+            return false;
+        StringDictionary[][] dicts = { { a.carriers, b.carriers }, { a.airports, b.airports },
+                { a.cities, b.cities }, { a.states, b.states } };
+        for (StringDictionary[] d : dicts) {
+            if (d[0].size() != d[1].size())
+                return false;
+            for (int c = 0; c < d[0].size(); c++)
+                if (!d[0].decode(c).equals(d[1].decode(c)))
+                    return false;
+        }
+        boolean same = Arrays.equals(a.year, 0, n, b.year, 0, n)
+                && Arrays.equals(a.epochDay, 0, n, b.epochDay, 0, n)
+                && Arrays.equals(a.carrier, 0, n, b.carrier, 0, n)
+                && Arrays.equals(a.carrierId, 0, n, b.carrierId, 0, n)
+                && Arrays.equals(a.flightNumber, 0, n, b.flightNumber, 0, n)
+                && Arrays.equals(a.originAirportId, 0, n, b.originAirportId, 0, n)
+                && Arrays.equals(a.origin, 0, n, b.origin, 0, n)
+                && Arrays.equals(a.originCity, 0, n, b.originCity, 0, n)
+                && Arrays.equals(a.originState, 0, n, b.originState, 0, n)
+                && Arrays.equals(a.destAirportId, 0, n, b.destAirportId, 0, n)
+                && Arrays.equals(a.dest, 0, n, b.dest, 0, n)
+                && Arrays.equals(a.destCity, 0, n, b.destCity, 0, n)
+                && Arrays.equals(a.destState, 0, n, b.destState, 0, n);
+        for (int d = 0; same && d < a.delays.length; d++)
+            same = Arrays.equals(a.delays[d], 0, n, b.delays[d], 0, n)
+                    && Arrays.equals(a.nulls[d], 0, words(n), b.nulls[d], 0, words(n));
+        return same;
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        String filename = args.length > 0 ? args[0] : "548634059_T_ONTIME_REPORTING.csv";
+        String snapshot = args.length > 1 ? args[1] : filename + ".dlyt";
+
+        Stopwatch sw = new Stopwatch();
+        DelayTable table = DelayTable.readCSVFile(filename);
+        double tCsv = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        write(table, snapshot);
+        double tWrite = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        DelayTable loaded = read(snapshot);
+        double tRead = sw.elapsedTime();
+
+        // prueba de ida y vuelta
+        assert sameContents(table, loaded);
+        DelayTable empty = new DelayTable();
+        write(empty, snapshot + ".empty");
+        assert sameContents(empty, read(snapshot + ".empty"));
+        Files.delete(Path.of(snapshot + ".empty"));
+
+        StdOut.println("Registros: " + table.size());
+        StdOut.printf("Snapshot: %,d bytes (CSV %,d bytes)%n", Files.size(Path.of(snapshot)),
+                Files.size(Path.of(filename)));
+        StdOut.printf("Cargar CSV       : %8.3f s%n", tCsv);
+        StdOut.printf("Escribir snapshot: %8.3f s%n", tWrite);
+        StdOut.printf("Cargar snapshot  : %8.3f s%n", tRead);
+    }
+
+}
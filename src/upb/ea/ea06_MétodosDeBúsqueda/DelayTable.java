@@ -0,0 +1,414 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+import upb.ea.util.CsvTokenizer;
+import upb.ea.util.FastDates;
+import upb.ea.util.StringDictionary;
+
+/**
+ * Columnar store for the on-time-reporting records.
+ *
+ * A DelayRecord keeps eight boxed Integer delays and six Strings per row.
+ * The table keeps one primitive array per column instead:
+ * <ul>
+ * <li>the date as days since 1970-01-01 in an int[]</li>
+ * <li>carrier, airport, city and state codes as dictionary codes in a short[]</li>
+ * <li>each nullable delay as an int[] plus a long[] bitmap with one bit per
+ *     row, set when the value is null</li>
+ * </ul>
+ *
+ * Rows are read back through {@link Row}, which has the same getters as
+ * DelayRecord.
+ */
+public class DelayTable implements Iterable<DelayTable.Row> {
+
+    /** Nullable delay columns, in the order of the CSV file */
+    public enum Delay {
+        DEP_DELAY, ARR_DELAY, ARR_DELAY_NEW, CARRIER_DELAY, WEATHER_DELAY, NAS_DELAY, SECURITY_DELAY,
+        LATE_AIRCRAFT_DELAY
+    }
+
+    private static final Delay[] DELAYS = Delay.values();
+
+    // Columns, package private so that the aggregation and snapshot classes
+    // of this package can scan them without copying
+    int n;
+    short[] year;
+    int[] epochDay;
+    short[] carrier;
+    int[] carrierId;
+    int[] flightNumber;
+    int[] originAirportId;
+    short[] origin;
+    short[] originCity;
+    short[] originState;
+    int[] destAirportId;
+    short[] dest;
+    short[] destCity;
+    short[] destState;
+    final int[][] delays = new int[DELAYS.length][];
+    final long[][] nulls = new long[DELAYS.length][];
+
+    // Origin and destination share the airport, city and state dictionaries
+    final StringDictionary carriers;
+    final StringDictionary airports;
+    final StringDictionary cities;
+    final StringDictionary states;
+
+
+    public DelayTable() {
+        this(1024);
+    }
+
+    public DelayTable(int capacity) {
+        this(capacity, new StringDictionary(), new StringDictionary(), new StringDictionary(),
+                new StringDictionary());
+    }
+
+    DelayTable(int capacity, StringDictionary carriers, StringDictionary airports, StringDictionary cities,
+            StringDictionary states) {
+        this.carriers = carriers;
+        this.airports = airports;
+        this.cities = cities;
+        this.states = states;
+        resize(Math.max(capacity, 1));
+    }
+
+
+    private void resize(int capacity) {
+        year = Arrays.copyOf(year == null ? new short[0] : year, capacity);
+        epochDay = Arrays.copyOf(epochDay == null ? new int[0] : epochDay, capacity);
+        carrier = Arrays.copyOf(carrier == null ? new short[0] : carrier, capacity);
+        carrierId = Arrays.copyOf(carrierId == null ? new int[0] : carrierId, capacity);
+        flightNumber = Arrays.copyOf(flightNumber == null ? new int[0] : flightNumber, capacity);
+        originAirportId = Arrays.copyOf(originAirportId == null ? new int[0] : originAirportId, capacity);
+        origin = Arrays.copyOf(origin == null ? new short[0] : origin, capacity);
+        originCity = Arrays.copyOf(originCity == null ? new short[0] : originCity, capacity);
+        originState = Arrays.copyOf(originState == null ? new short[0] : originState, capacity);
+        destAirportId = Arrays.copyOf(destAirportId == null ? new int[0] : destAirportId, capacity);
+        dest = Arrays.copyOf(dest == null ? new short[0] : dest, capacity);
+        destCity = Arrays.copyOf(destCity == null ? new short[0] : destCity, capacity);
+        destState = Arrays.copyOf(destState == null ? new short[0] : destState, capacity);
+        for (int d = 0; d < DELAYS.length; d++) {
+            delays[d] = Arrays.copyOf(delays[d] == null ? new int[0] : delays[d], capacity);
+            nulls[d] = Arrays.copyOf(nulls[d] == null ? new long[0] : nulls[d], (capacity + 63) >>> 6);
+        }
+    }
+
+    /** Release the unused capacity of the columns */
+    public void trimToSize() {
+        if (n < year.length)
+            resize(Math.max(n, 1));
+    }
+
+    // Index of a new row, growing the columns if needed
+    private int newRow() {
+        if (n == year.length)
+            resize(2 * n);
+        return n++;
+    }
+
+    private static short code(StringDictionary dict, String s) {
+        int c = dict.encode(s);
+        if (c > 0xFFFF)
+            throw new IllegalStateException("More than 65536 distinct values: " + s);
+        return (short) c;
+    }
+
+    private void setDelay(int d, int row, boolean isNull, int value) {
+        if (isNull) {
+            nulls[d][row >>> 6] |= 1L << row;
+            delays[d][row] = 0;
+        } else {
+            nulls[d][row >>> 6] &= ~(1L << row);
+            delays[d][row] = value;
+        }
+    }
+
+
+    /**
+     * Append a record to the table
+     */
+    public void add(DelayRecord r) {
+        int i = newRow();
+        year[i] = (short) r.getYear();
+        epochDay[i] = r.getEpochDay();
+        carrier[i] = code(carriers, r.getCarrier());
+        carrierId[i] = r.getCarrierId();
+        flightNumber[i] = r.getFlightNumber();
+        originAirportId[i] = r.getOriginAirportId();
+        origin[i] = code(airports, r.getOrigin());
+        originCity[i] = code(cities, r.getOriginCity());
+        originState[i] = code(states, r.getOriginState());
+        destAirportId[i] = r.getDestAirportId();
+        dest[i] = code(airports, r.getDest());
+        destCity[i] = code(cities, r.getDestCity());
+        destState[i] = code(states, r.getDestState());
+        Integer[] values = { r.getDepDelay(), r.getArrDelay(), r.getArrDelayNew(), r.getCarrierDelay(),
+                r.getWeatherDelay(), r.getNasDelay(), r.getSecurityDelay(), r.getLateAircraftDelay() };
+        for (int d = 0; d < DELAYS.length; d++)
+            setDelay(d, i, values[d] == null, values[d] == null ? 0 : values[d]);
+    }
+
+    /**
+     * Append the current record of the tokenizer, in the column order of the
+     * CSV file (see DelayRecord)
+     * @throws NumberFormatException if a numeric field is not valid
+     * @throws DateTimeParseException if the date is not valid
+     */
+    void add(CsvTokenizer tok) {
+        int day = FastDates.isoEpochDay(tok, tok.start(1), tok.end(1));
+        int i = newRow();
+        year[i] = (short) tok.parseInt(0);
+        epochDay[i] = day;
+        carrier[i] = code(carriers, tok.field(2));
+        carrierId[i] = tok.parseInt(3);
+        flightNumber[i] = tok.parseInt(4);
+        originAirportId[i] = tok.parseInt(5);
+        origin[i] = code(airports, tok.field(6));
+        originCity[i] = code(cities, tok.field(7));
+        originState[i] = code(states, tok.field(8));
+        destAirportId[i] = tok.parseInt(9);
+        dest[i] = code(airports, tok.field(10));
+        destCity[i] = code(cities, tok.field(11));
+        destState[i] = code(states, tok.field(12));
+        for (int d = 0; d < DELAYS.length; d++) {
+            int k = 13 + d;
+            boolean isNull = tok.isEmpty(k);
+            setDelay(d, i, isNull, isNull ? 0 : tok.parseInt(k));
+        }
+    }
+
+    public static DelayTable from(Iterable<DelayRecord> records) {
+        DelayTable t = new DelayTable();
+        for (DelayRecord r : records)
+            t.add(r);
+        t.trimToSize();
+        return t;
+    }
+
+    /**
+     * Read the CSV file directly into a table, without creating DelayRecords
+     */
+    public static DelayTable readCSVFile(String filename) {
+        DelayTable t = new DelayTable();
+        CsvTokenizer tok = new CsvTokenizer();
+        In in = new In(filename);
+        in.readLine();
+        while (in.hasNextLine()) {
+            String line = in.readLine();
+            if (tok.parse(line) == 0)
+                continue;
+            try {
+                t.add(tok);
+            } catch (DateTimeParseException e) {
+                System.out.println("Error reading line: " + line);
+            }
+        }
+        in.close();
+        t.trimToSize();
+        return t;
+    }
+
+
+    public int size() {
+        return n;
+    }
+
+    public int epochDay(int row)        { return epochDay[check(row)]; }
+    public LocalDate date(int row)      { return LocalDate.ofEpochDay(epochDay(row)); }
+    public int carrierCode(int row)     { return carrier[check(row)] & 0xFFFF; }
+    public int originCode(int row)      { return origin[check(row)] & 0xFFFF; }
+    public int destCode(int row)        { return dest[check(row)] & 0xFFFF; }
+
+    /** True if the delay of the row is null (missing in the file) */
+    public boolean isNull(Delay d, int row) {
+        check(row);
+        return (nulls[d.ordinal()][row >>> 6] & (1L << row)) != 0;
+    }
+
+    /** Delay of the row, 0 if it is null */
+    public int delay(Delay d, int row) {
+        return delays[d.ordinal()][check(row)];
+    }
+
+    public StringDictionary carriers() { return carriers; }
+    public StringDictionary airports() { return airports; }
+    public StringDictionary cities()   { return cities; }
+    public StringDictionary states()   { return states; }
+
+    private int check(int row) {
+        if (row < 0 || row >= n)
+            throw new IndexOutOfBoundsException("Row " + row + " of a table with " + n + " rows");
+        return row;
+    }
+
+
+    /**
+     * View of a row of the table with the getters of DelayRecord.
+     * Values are read from the columns on each call.
+     */
+    public class Row {
+        private int i;
+
+        private Row(int i) {
+            this.i = i;
+        }
+
+        public int       getIndex()             { return i; }
+        public int       getYear()              { return year[i]; }
+        public int       getEpochDay()          { return epochDay[i]; }
+        public LocalDate getDate()              { return LocalDate.ofEpochDay(epochDay[i]); }
+        public String    getCarrier()           { return carriers.decode(carrier[i] & 0xFFFF); }
+        public int       getCarrierId()         { return carrierId[i]; }
+        public int       getFlightNumber()      { return flightNumber[i]; }
+        public int       getOriginAirportId()   { return originAirportId[i]; }
+        public String    getOrigin()            { return airports.decode(origin[i] & 0xFFFF); }
+        public String    getOriginCity()        { return cities.decode(originCity[i] & 0xFFFF); }
+        public String    getOriginState()       { return states.decode(originState[i] & 0xFFFF); }
+        public int       getDestAirportId()     { return destAirportId[i]; }
+        public String    getDest()              { return airports.decode(dest[i] & 0xFFFF); }
+        public String    getDestCity()          { return cities.decode(destCity[i] & 0xFFFF); }
+        public String    getDestState()         { return states.decode(destState[i] & 0xFFFF); }
+        public Integer   getDepDelay()          { return get(Delay.DEP_DELAY); }
+        public Integer   getArrDelay()          { return get(Delay.ARR_DELAY); }
+        public Integer   getArrDelayNew()       { return get(Delay.ARR_DELAY_NEW); }
+        public Integer   getCarrierDelay()      { return get(Delay.CARRIER_DELAY); }
+        public Integer   getWeatherDelay()      { return get(Delay.WEATHER_DELAY); }
+        public Integer   getNasDelay()          { return get(Delay.NAS_DELAY); }
+        public Integer   getSecurityDelay()     { return get(Delay.SECURITY_DELAY); }
+        public Integer   getLateAircraftDelay() { return get(Delay.LATE_AIRCRAFT_DELAY); }
+
+        /** Delay of this row, null if it is missing */
+        public Integer get(Delay d) {
+            return isNull(d, i) ? null : delays[d.ordinal()][i];
+        }
+    }
+
+    /** A new view of the given row */
+    public Row row(int i) {
+        return new Row(check(i));
+    }
+
+    /**
+     * Iterate over the rows of the table. To avoid one object per row the
+     * iterator returns the same Row, moved to the next row on each call to
+     * next(); use row(int) to keep a reference to a particular row.
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        return new Iterator<Row>() {
+            private final Row cursor = new Row(-1);
+
+            @Override
+            public boolean hasNext() {
+                return cursor.i + 1 < n;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                cursor.i++;
+                return cursor;
+            }
+        };
+    }
+
+
+    /**
+     * Bytes used by the columns and the dictionaries
+     */
+    public long footprint() {
+        long bytes = 0;
+        for (long b : columnBytes())
+            bytes += b;
+        return bytes + carriers.footprint() + airports.footprint() + cities.footprint() + states.footprint();
+    }
+
+    private static final String[] COLUMNS = { "year", "date", "carrier", "carrierId", "flightNumber",
+            "originAirportId", "origin", "originCity", "originState", "destAirportId", "dest", "destCity",
+            "destState", "delays (8)", "null bitmaps (8)" };
+
+    private long[] columnBytes() {
+        long delayBytes = 0, nullBytes = 0;
+        for (int d = 0; d < DELAYS.length; d++) {
+            delayBytes += 16 + 4L * delays[d].length;
+            nullBytes += 16 + 8L * nulls[d].length;
+        }
+        return new long[] { 16 + 2L * year.length, 16 + 4L * epochDay.length, 16 + 2L * carrier.length,
+                16 + 4L * carrierId.length, 16 + 4L * flightNumber.length, 16 + 4L * originAirportId.length,
+                16 + 2L * origin.length, 16 + 2L * originCity.length, 16 + 2L * originState.length,
+                16 + 4L * destAirportId.length, 16 + 2L * dest.length, 16 + 2L * destCity.length,
+                16 + 2L * destState.length, delayBytes, nullBytes };
+    }
+
+    /**
+     * Bytes used by each column and each dictionary
+     */
+    public String footprintReport() {
+        StringBuilder sb = new StringBuilder();
+        long[] bytes = columnBytes();
+        for (int c = 0; c < COLUMNS.length; c++)
+            sb.append(String.format("%-20s %,14d bytes%n", COLUMNS[c], bytes[c]));
+        sb.append(String.format("%-20s %,14d bytes (%d)%n", "dict carriers", carriers.footprint(), carriers.size()));
+        sb.append(String.format("%-20s %,14d bytes (%d)%n", "dict airports", airports.footprint(), airports.size()));
+        sb.append(String.format("%-20s %,14d bytes (%d)%n", "dict cities", cities.footprint(), cities.size()));
+        sb.append(String.format("%-20s %,14d bytes (%d)%n", "dict states", states.footprint(), states.size()));
+        sb.append(String.format("%-20s %,14d bytes, %.1f bytes/row%n", "total", footprint(),
+                n == 0 ? 0.0 : (double) footprint() / n));
+        return sb.toString();
+    }
+
+
+    // Heap in use after a garbage collection
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "548634059_T_ONTIME_REPORTING.csv";
+
+        long base = usedMemory();
+        DelayTable table = readCSVFile(filename);
+        long tableBytes = usedMemory() - base;
+
+        base = usedMemory();
+        ArrayList<DelayRecord> records = DelayRecordLoader.load(filename);
+        records.trimToSize();
+        long listBytes = usedMemory() - base;
+
+        // la tabla y la lista deben tener los mismos datos
+        assert table.size() == records.size();
+        int i = 0;
+        for (Row r : table) {
+            DelayRecord d = records.get(i++);
+            assert r.getCarrier().equals(d.getCarrier()) && r.getDest().equals(d.getDest());
+            assert r.getOriginCity().equals(d.getOriginCity()) && r.getFlightNumber() == d.getFlightNumber();
+            assert Objects.equals(r.getArrDelay(), d.getArrDelay());
+            assert Objects.equals(r.getLateAircraftDelay(), d.getLateAircraftDelay());
+        }
+        assert from(records).footprint() == table.footprint();
+
+        StdOut.println("Registros: " + table.size());
+        StdOut.print(table.footprintReport());
+        StdOut.printf("ArrayList<DelayRecord> (medido): %,14d bytes, %.1f bytes/registro%n", listBytes,
+                (double) listBytes / table.size());
+        StdOut.printf("DelayTable (medido)            : %,14d bytes, %.1f bytes/registro%n", tableBytes,
+                (double) tableBytes / table.size());
+        StdOut.printf("Reduccion: %.1fx%n", (double) listBytes / tableBytes);
+    }
+
+}
@@ -8,14 +8,11 @@ package upb.ea.ea06_MétodosDeBúsqueda;
  * 
  */
 
-import java.util.Date;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.TreeMap;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.In;
@@ -24,108 +21,81 @@ import edu.princeton.cs.algs4.Bag;
 import edu.princeton.cs.algs4.MaxPQ;
 import edu.princeton.cs.algs4.RedBlackBST;
 
-/**
- * Un ADT para representar los libros en la coleccion
- */
-class Book {
-    private int bookID;
-    private String title;
-    private String authors;
-    private float average_rating;
-    private String isbn;
-    private String isbn13;
-    private String language_code;
-    private int num_pages;
-    private int ratings_count;
-    private int text_reviews_count;
-    private Date publication_date;
-    private String publisher;
-    
-    Book(String line) throws ParseException {
-        String[] tmp = line.split(",");
-        bookID = Integer.valueOf(tmp[0]);
-        title = tmp[1];
-        authors = tmp[2];
-        average_rating = Float.parseFloat(tmp[3]);
-        isbn = tmp[4];
-        isbn13 = tmp[5];
-        language_code = tmp[6];
-        num_pages = Integer.valueOf(tmp[7]);
-        ratings_count = Integer.valueOf(tmp[8]);
-        text_reviews_count = Integer.valueOf(tmp[9]);
-        publication_date = sdf.parse(tmp[10]);
-        publisher = tmp[11];
-    }
-
-    public int    getBookID()             { return bookID; }
-    public String getTitle()              { return title; }
-    public String getAuthors()            { return authors; }
-    public float  getAverage_rating()     { return average_rating; }
-    public String getIsbn()               { return isbn; }
-    public String getIsbn13()             { return isbn13; }
-    public String getLanguage_code()      { return language_code; }
-    public int    getNum_pages()          { return num_pages; }
-    public int    getRatings_count()      { return ratings_count; }
-    public int    getText_reviews_count() { return text_reviews_count; }
-    public Date   getPublication_date()   { return publication_date; }
-    public String getPublisher()          { return publisher; }
-
-    static final SimpleDateFormat sdf = new SimpleDateFormat("MM/dd/yyyy");
-
-}
-
-class BookComparator implements Comparator<Book> {
-
-    public int compare(Book a, Book b) {
-        // TODO: Hacer un comparador de libros
-
-        return 0;
-    }
-
-}
-
-
 public class Goodreads {
 
 
-    public static void readFile(String file) {
+    public static BookCatalog readFile(String file) {
+        BookCatalog catalog = new BookCatalog();
         In in = new In(file);
         in.readLine(); // ignorar primera linea
         while(! in.isEmpty()) {
             String l = in.readLine();
             try {
                 Book b = new Book(l);
-                // TODO: Agregar el libro a las estructuras necesarias para hacer las búsquedas
-                
+                catalog.add(b);     // actualiza todos los indices en la misma pasada
             }
-            catch(ParseException e) { 
+            catch(DateTimeParseException e) { 
                 StdOut.println("Fecha no valida: "+l);
             }
             catch(NumberFormatException e) {
                 StdOut.println("Numero no valido: "+l);
             }
         }
+        return catalog;
     }
 
 
-    public static void librosPorAutor(String autor) {
-        // TODO: Implementar un metodo para calcular el promedio de calificacion
-        // de los libros de un autor
+    public static void librosPorAutor(BookCatalog catalog, String autor) {
+        // Promedio de calificacion de los libros de un autor: O(1) con el indice por autor
+        for (int id : catalog.booksByAuthor(autor))
+            StdOut.println("  "+catalog.book(id).getTitle());
+        StdOut.printf("%s: %d libros, calificacion promedio %.2f%n", autor,
+                catalog.booksByAuthor(autor).length, catalog.averageRating(autor));
     }
 
-    public static void librosPorAnno() { 
-        // TODO: Calcular cuantos libros aparecen registrados por cada año
-
+    public static void librosPorAnno(BookCatalog catalog) { 
+        // Cuantos libros aparecen registrados por cada año, en orden
+        for (int anno : catalog.years())
+            StdOut.println(anno+" : "+catalog.booksInYear(anno));
     }
 
-    public static void topPorAutor() {
-        // TODO: Calcular los 5 libros mejor calificados por cada autor
-
+    public static void topPorAutor(BookCatalog catalog) {
+        // Los 5 libros mejor calificados por cada autor, mantenidos al cargar el catalogo
+        for (String autor : catalog.authors()) {
+            StdOut.println(autor);
+            for (int id : catalog.topByAuthor(autor))
+                StdOut.printf("  %.2f %s%n", catalog.book(id).getAverage_rating(), catalog.book(id).getTitle());
+        }
     }
 
     public static void main(String[] args) {
-        String ruta = "D:\\UPB\\Datasets\\books.csv";
-        readFile(ruta);
+        String ruta = args.length > 0 ? args[0] : "D:\\UPB\\Datasets\\books.csv";
+        BookCatalog catalog = readFile(ruta);
+        StdOut.println("Libros: "+catalog.size());
+
+        librosPorAnno(catalog);
+        librosPorAutor(catalog, "J.K. Rowling");
+        StdOut.println("Libros entre 2000 y 2005: "+catalog.booksBetween(2000, 2005).size());
+        topPorAutor(catalog);
+        StdOut.println("Titulos con 'harry' y 'potter': "+catalog.searchTitles("harry", "potter").length);
+
+        // Los indices deben coincidir con un recorrido de todos los libros
+        int total = 0;
+        for (int anno : catalog.years())
+            total += catalog.booksInYear(anno);
+        assert total == catalog.size();
+        assert catalog.booksBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).size() == catalog.size();
+
+        // Bajar la calificacion del mejor libro de un autor cambia su top
+        for (String autor : catalog.authors()) {
+            int[] top = catalog.topByAuthor(autor);
+            if (catalog.booksByAuthor(autor).length <= top.length)
+                continue;
+            catalog.updateRating(top[0], 0.0f);
+            int[] nuevo = catalog.topByAuthor(autor);
+            assert nuevo.length == top.length && nuevo[0] == top[1] && nuevo[nuevo.length - 1] != top[0];
+            break;
+        }
 
     }
 
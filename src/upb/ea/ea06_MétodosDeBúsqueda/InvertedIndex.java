@@ -0,0 +1,435 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Inverted index for keyword search over the text of a collection of
+ * documents (book titles, tweets).
+ *
+ * Documents are identified by their position 0..n-1. The text is split into
+ * terms, maximal runs of letters and digits in lower case, and for every term
+ * the index keeps the sorted list of documents that contain it. Each list is
+ * stored as the gaps between consecutive ids encoded as varints (7 bits per
+ * byte, the high bit set while more bytes follow), so frequent terms, with
+ * small gaps, take about one byte per document. All the lists share one byte
+ * array.
+ *
+ * The index is built in parallel: each partition of consecutive documents
+ * collects its own lists, and since the partitions are in order the global
+ * list of a term is the concatenation of its partial lists.
+ *
+ * Queries: and() intersects the lists, starting from the shortest one, and
+ * or() merges them.
+ */
+public class InvertedIndex {
+
+    private final int documents;
+    private final CountingHashST<String> terms;   // term -> term id + 1
+    private final String[] termOf;
+    private final int[] df;                       // documents per term
+    private final long[] offset;                  // start of each list in data
+    private final byte[] data;
+
+    private InvertedIndex(int documents, CountingHashST<String> terms, String[] termOf, int[] df,
+            long[] offset, byte[] data) {
+        this.documents = documents;
+        this.terms = terms;
+        this.termOf = termOf;
+        this.df = df;
+        this.offset = offset;
+        this.data = data;
+    }
+
+
+    /**
+     * Growable list of ints
+     */
+    private static class IntList {
+        int[] a = new int[2];
+        int n;
+
+        void add(int x) {
+            if (n == a.length)
+                a = Arrays.copyOf(a, 2 * n);
+            a[n++] = x;
+        }
+
+        int last() {
+            return a[n - 1];
+        }
+    }
+
+    /**
+     * Lists of the documents in [from, to)
+     */
+    private static class Partial {
+        final CountingHashST<String> terms = new CountingHashST<>();
+        final ArrayList<String> termOf = new ArrayList<>();
+        final ArrayList<IntList> lists = new ArrayList<>();
+    }
+
+    /**
+     * Terms of a text: runs of letters and digits, in lower case
+     */
+    public static List<String> terms(String text) {
+        List<String> result = new ArrayList<>();
+        forEachTerm(text, new StringBuilder(), result::add);
+        return result;
+    }
+
+    private interface TermSink {
+        void accept(String term);
+    }
+
+    private static void forEachTerm(String text, StringBuilder sb, TermSink sink) {
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i)))
+                i++;
+            sb.setLength(0);
+            while (i < n && Character.isLetterOrDigit(text.charAt(i)))
+                sb.append(Character.toLowerCase(text.charAt(i++)));
+            if (sb.length() > 0)
+                sink.accept(sb.toString());
+        }
+    }
+
+    private static Partial index(IntFunction<String> text, int from, int to) {
+        Partial p = new Partial();
+        StringBuilder sb = new StringBuilder();
+        for (int doc = from; doc < to; doc++) {
+            String t = text.apply(doc);
+            if (t == null)
+                continue;
+            int d = doc;
+            forEachTerm(t, sb, term -> {
+                int id = p.terms.get(term) - 1;
+                if (id < 0) {
+                    id = p.lists.size();
+                    p.terms.put(term, id + 1);
+                    p.termOf.add(term);
+                    p.lists.add(new IntList());
+                }
+                IntList l = p.lists.get(id);
+                if (l.n == 0 || l.last() != d)
+                    l.add(d);
+            });
+        }
+        return p;
+    }
+
+
+    /**
+     * Index documents 0..n-1
+     * @param n number of documents
+     * @param text text of each document, null for none
+     * @param partitions number of partitions indexed in parallel, 1 for a
+     *        sequential build
+     */
+    public static InvertedIndex build(int n, IntFunction<String> text, int partitions) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("partitions must be positive");
+        int parts = Math.max(1, Math.min(partitions, n / 1024));
+        List<Partial> partials = IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(i -> index(text, (int) ((long) n * i / parts), (int) ((long) n * (i + 1) / parts)))
+                .collect(Collectors.toList());
+
+        // global term ids, in order of first appearance
+        CountingHashST<String> terms = new CountingHashST<>();
+        ArrayList<String> termOf = new ArrayList<>();
+        int[][] globalId = new int[parts][];
+        for (int i = 0; i < parts; i++) {
+            Partial p = partials.get(i);
+            globalId[i] = new int[p.termOf.size()];
+            for (int t = 0; t < p.termOf.size(); t++) {
+                String term = p.termOf.get(t);
+                int id = terms.get(term) - 1;
+                if (id < 0) {
+                    id = termOf.size();
+                    terms.put(term, id + 1);
+                    termOf.add(term);
+                }
+                globalId[i][t] = id;
+            }
+        }
+
+        // size of each encoded list, then the lists themselves
+        int m = termOf.size();
+        int[] df = new int[m];
+        long[] bytes = new long[m];
+        int[] lastDoc = new int[m];
+        Arrays.fill(lastDoc, -1);
+        for (int i = 0; i < parts; i++) {
+            Partial p = partials.get(i);
+            for (int t = 0; t < p.lists.size(); t++) {
+                int g = globalId[i][t];
+                IntList l = p.lists.get(t);
+                df[g] += l.n;
+                for (int j = 0; j < l.n; j++) {
+                    bytes[g] += varintSize(l.a[j] - lastDoc[g]);
+                    lastDoc[g] = l.a[j];
+                }
+            }
+        }
+        long[] offset = new long[m + 1];
+        for (int g = 0; g < m; g++)
+            offset[g + 1] = offset[g] + bytes[g];
+        if (offset[m] > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Index larger than 2 GB");
+        byte[] data = new byte[(int) offset[m]];
+        long[] pos = Arrays.copyOf(offset, m);
+        Arrays.fill(lastDoc, -1);
+        for (int i = 0; i < parts; i++) {
+            Partial p = partials.get(i);
+            for (int t = 0; t < p.lists.size(); t++) {
+                int g = globalId[i][t];
+                IntList l = p.lists.get(t);
+                int q = (int) pos[g];
+                for (int j = 0; j < l.n; j++) {
+                    q = putVarint(data, q, l.a[j] - lastDoc[g]);
+                    lastDoc[g] = l.a[j];
+                }
+                pos[g] = q;
+            }
+        }
+        return new InvertedIndex(n, terms, termOf.toArray(new String[0]), df, offset, data);
+    }
+
+    public static InvertedIndex build(int n, IntFunction<String> text) {
+        return build(n, text, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+
+    private static int varintSize(int x) {
+        int size = 1;
+        while ((x >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+    private static int putVarint(byte[] b, int p, int x) {
+        while ((x & ~0x7F) != 0) {
+            b[p++] = (byte) ((x & 0x7F) | 0x80);
+            x >>>= 7;
+        }
+        b[p++] = (byte) x;
+        return p;
+    }
+
+    /**
+     * Reads the documents of a term one by one
+     */
+    private class Cursor {
+        private int p;
+        private final int end;
+        private int doc = -1;
+
+        Cursor(int term) {
+            p = (int) offset[term];
+            end = (int) offset[term + 1];
+        }
+
+        // next document, or -1 at the end of the list
+        int next() {
+            if (p >= end)
+                return -1;
+            int x = 0, shift = 0;
+            byte b;
+            do {
+                b = data[p++];
+                x |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return doc += x;
+        }
+    }
+
+
+    public int documents() {
+        return documents;
+    }
+
+    public int termCount() {
+        return termOf.length;
+    }
+
+    private int termId(String term) {
+        StringBuilder sb = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); i++)
+            sb.append(Character.toLowerCase(term.charAt(i)));
+        return terms.get(sb.toString()) - 1;
+    }
+
+    /** Number of documents that contain the term */
+    public int documentFrequency(String term) {
+        int t = termId(term);
+        return t < 0 ? 0 : df[t];
+    }
+
+    /** Sorted ids of the documents that contain the term */
+    public int[] postings(String term) {
+        int t = termId(term);
+        if (t < 0)
+            return new int[0];
+        return decode(t);
+    }
+
+    private int[] decode(int t) {
+        int[] a = new int[df[t]];
+        Cursor c = new Cursor(t);
+        for (int i = 0; i < a.length; i++)
+            a[i] = c.next();
+        return a;
+    }
+
+    /**
+     * Documents that contain all the terms
+     */
+    public int[] and(String... query) {
+        if (query.length == 0)
+            return new int[0];
+        int[] ids = new int[query.length];
+        for (int i = 0; i < query.length; i++) {
+            ids[i] = termId(query[i]);
+            if (ids[i] < 0)
+                return new int[0];
+        }
+        // start from the shortest list, the result can only get shorter
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++)
+            order[i] = ids[i];
+        Arrays.sort(order, (a, b) -> Integer.compare(df[a], df[b]));
+        int[] result = decode(order[0]);
+        int n = result.length;
+        for (int i = 1; i < order.length && n > 0; i++) {
+            Cursor c = new Cursor(order[i]);
+            int k = 0;
+            int doc = c.next();
+            for (int j = 0; j < n && doc >= 0; j++) {
+                while (doc >= 0 && doc < result[j])
+                    doc = c.next();
+                if (doc == result[j])
+                    result[k++] = result[j];
+            }
+            n = k;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Documents that contain at least one of the terms
+     */
+    public int[] or(String... query) {
+        int[] result = new int[0];
+        for (String term : query) {
+            int t = termId(term);
+            if (t < 0)
+                continue;
+            int[] merged = new int[result.length + df[t]];
+            Cursor c = new Cursor(t);
+            int doc = c.next();
+            int i = 0, k = 0;
+            while (i < result.length || doc >= 0) {
+                if (doc < 0 || (i < result.length && result[i] < doc))
+                    merged[k++] = result[i++];
+                else {
+                    if (i < result.length && result[i] == doc)
+                        i++;
+                    merged[k++] = doc;
+                    doc = c.next();
+                }
+            }
+            result = Arrays.copyOf(merged, k);
+        }
+        return result;
+    }
+
+    /** Bytes used by the posting lists */
+    public long postingBytes() {
+        return data.length;
+    }
+
+
+    // Respuesta por fuerza bruta, para verificar
+    private static int[] scan(String[] docs, String[] query, boolean all) {
+        IntStream matches = IntStream.range(0, docs.length).filter(d -> {
+            List<String> t = terms(docs[d]);
+            for (String q : query)
+                if (t.contains(q) != all)
+                    return !all;
+            return all;
+        });
+        return matches.toArray();
+    }
+
+    public static void main(String[] args) {
+        String[] docs;
+        if (args.length > 0) {
+            ArrayList<CustomerSupportTweet> tweets = CustomerSupportTweet.leerTweetsCsv(args[0]);
+            docs = new String[tweets.size()];
+            for (int i = 0; i < docs.length; i++)
+                docs[i] = tweets.get(i).getText();
+        } else {
+            // textos sinteticos con vocabulario de Zipf
+            String[] vocabulary = new String[20_000];
+            for (int i = 0; i < vocabulary.length; i++)
+                vocabulary[i] = "t" + i;
+            StdRandom.setSeed(1);
+            docs = new String[1_000_000];
+            StringBuilder sb = new StringBuilder();
+            for (int d = 0; d < docs.length; d++) {
+                sb.setLength(0);
+                for (int w = 0; w < 12; w++) {
+                    double u = StdRandom.uniform();
+                    sb.append(vocabulary[(int) (vocabulary.length * u * u * u)]).append(' ');
+                }
+                docs[d] = sb.toString();
+            }
+        }
+        String[] text = docs;
+
+        Stopwatch sw = new Stopwatch();
+        InvertedIndex sequential = build(text.length, d -> text[d], 1);
+        double tSeq = sw.elapsedTime();
+        sw = new Stopwatch();
+        InvertedIndex index = build(text.length, d -> text[d]);
+        double tPar = sw.elapsedTime();
+        StdOut.printf("%d documentos, %d terminos, %,d bytes de listas%n", index.documents(), index.termCount(),
+                index.postingBytes());
+        StdOut.printf("Construccion: secuencial %.3f s, paralela %.3f s%n", tSeq, tPar);
+
+        // Terminos de consulta: los de un documento de la mitad de la coleccion
+        int d = text.length / 2;
+        while (d + 1 < text.length && (text[d] == null || terms(text[d]).size() < 3))
+            d++;
+        List<String> q = terms(text[d]);
+        String[][] queries = { { q.get(0) }, { q.get(0), q.get(1) }, q.subList(0, Math.min(3, q.size()))
+                .toArray(new String[0]) };
+        for (String[] query : queries) {
+            long t0 = System.nanoTime();
+            int[] and = index.and(query);
+            long t1 = System.nanoTime();
+            int[] or = index.or(query);
+            long t2 = System.nanoTime();
+            StdOut.printf("%-30s AND %8d docs %8.3f ms   OR %8d docs %8.3f ms%n", Arrays.toString(query),
+                    and.length, (t1 - t0) / 1e6, or.length, (t2 - t1) / 1e6);
+            assert Arrays.equals(and, sequential.and(query));
+            if (text.length <= 1_000_000) {
+                assert Arrays.equals(and, scan(text, query, true));
+                assert Arrays.equals(or, scan(text, query, false));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * Mergeable sketch for approximate quantiles of int values.
+ *
+ * Values are counted in buckets whose bounds grow geometrically by a factor
+ * gamma = (1 + alpha) / (1 - alpha), so the value reported for any quantile
+ * is within a relative error alpha of a value of the input. Positive and
+ * negative values use separate bucket arrays and zero has its own counter.
+ *
+ * Two sketches with the same alpha merge by adding their buckets, which makes
+ * them suitable for per-partition aggregation. The memory used depends on the
+ * range of the values (a few hundred buckets for delays in minutes), not on
+ * how many values were added.
+ */
+public class QuantileSketch {
+
+    private final double alpha;
+    private final double gamma;
+    private final double logGamma;
+    private final Store positive = new Store();
+    private final Store negative = new Store();
+    private long zeros;
+    private long count;
+
+    public QuantileSketch() {
+        this(0.01);
+    }
+
+    /**
+     * @param alpha relative accuracy, for instance 0.01 for 1%
+     */
+    public QuantileSketch(double alpha) {
+        if (!(alpha > 0 && alpha < 1))
+            throw new IllegalArgumentException("alpha must be in (0, 1)");
+        this.alpha = alpha;
+        this.gamma = (1 + alpha) / (1 - alpha);
+        this.logGamma = Math.log(gamma);
+    }
+
+    private int bucket(int magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    // Representative value of a bucket: within alpha of any value in it
+    private double value(int bucket) {
+        return 2 * Math.pow(gamma, bucket) / (gamma + 1);
+    }
+
+    public void add(int x) {
+        if (x > 0)
+            positive.add(bucket(x), 1);
+        else if (x < 0)
+            negative.add(bucket(x == Integer.MIN_VALUE ? Integer.MAX_VALUE : -x), 1);
+        else
+            zeros++;
+        count++;
+    }
+
+    /**
+     * Add the counts of other to this sketch
+     */
+    public void merge(QuantileSketch other) {
+        if (other.alpha != alpha)
+            throw new IllegalArgumentException("Sketches with different accuracy");
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeros += other.zeros;
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Approximate q-quantile of the values added, NaN if the sketch is empty
+     * @param q in [0, 1], 0.5 for the median
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1)
+            throw new IllegalArgumentException("q must be in [0, 1]");
+        if (count == 0)
+            return Double.NaN;
+        long rank = (long) (q * (count - 1));
+        // negative values, from the largest magnitude down
+        for (int b = negative.max(); b >= negative.min(); b--) {
+            rank -= negative.get(b);
+            if (rank < 0)
+                return -value(b);
+        }
+        rank -= zeros;
+        if (rank < 0)
+            return 0;
+        for (int b = positive.min(); b <= positive.max(); b++) {
+            rank -= positive.get(b);
+            if (rank < 0)
+                return value(b);
+        }
+        return value(positive.max());
+    }
+
+
+    /**
+     * Counts of a contiguous range of buckets, grown on demand
+     */
+    private static class Store {
+        private long[] counts;
+        private int offset;      // bucket of counts[0]
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        void add(int bucket, long c) {
+            if (counts == null) {
+                counts = new long[32];
+                offset = bucket - 16;
+            }
+            if (bucket < offset || bucket >= offset + counts.length)
+                grow(bucket);
+            counts[bucket - offset] += c;
+            if (bucket < min)
+                min = bucket;
+            if (bucket > max)
+                max = bucket;
+        }
+
+        private void grow(int bucket) {
+            int lo = Math.min(offset, bucket);
+            int hi = Math.max(offset + counts.length, bucket + 1);
+            int len = Math.max(hi - lo, 2 * counts.length);
+            long[] c = new long[len];
+            int newOffset = bucket < offset ? hi - len : lo;
+            System.arraycopy(counts, 0, c, offset - newOffset, counts.length);
+            counts = c;
+            offset = newOffset;
+        }
+
+        void merge(Store other) {
+            if (other.counts == null)
+                return;
+            for (int b = other.min; b <= other.max; b++) {
+                long c = other.counts[b - other.offset];
+                if (c != 0)
+                    add(b, c);
+            }
+        }
+
+        long get(int bucket) {
+            return counts[bucket - offset];
+        }
+
+        int min() {
+            return min;
+        }
+
+        int max() {
+            return max;
+        }
+    }
+
+
+    public static void main(String[] args) {
+        int[] data = new int[100_001];
+        for (int i = 0; i < data.length; i++)
+            data[i] = i - 20_000;
+        QuantileSketch a = new QuantileSketch();
+        QuantileSketch b = new QuantileSketch();
+        for (int i = 0; i < data.length; i++)
+            (i % 2 == 0 ? a : b).add(data[i]);
+        a.merge(b);
+        int[] sorted = data.clone();
+        Arrays.sort(sorted);
+        for (double q : new double[] { 0.0, 0.1, 0.5, 0.95, 0.99, 1.0 }) {
+            double exact = sorted[(int) (q * (sorted.length - 1))];
+            double approx = a.quantile(q);
+            StdOut.printf("q=%.2f exacto=%9.1f aproximado=%9.1f%n", q, exact, approx);
+            assert Math.abs(approx - exact) <= 0.01 * Math.abs(exact) + 1e-9;
+        }
+    }
+
+}
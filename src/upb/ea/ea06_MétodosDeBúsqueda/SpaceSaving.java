@@ -0,0 +1,217 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.princeton.cs.algs4.MinPQ;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Space-Saving summary of the most frequent keys of a stream.
+ *
+ * At most capacity keys are monitored, each one with a counter. A key that is
+ * not monitored replaces the one with the smallest counter c, and starts at
+ * c + 1 with error c. So the memory is fixed by the capacity, not by the
+ * number of distinct keys, and for a stream of n keys:
+ * <ul>
+ * <li>every counter overestimates the true count by at most its error, and
+ *     every error is at most n / capacity</li>
+ * <li>every key with true count above n / capacity is monitored</li>
+ * </ul>
+ * The counters are kept in an indexed min-heap, so add() is O(log capacity).
+ */
+public class SpaceSaving<Key> {
+
+    /**
+     * Estimated count of a key: the true count is in [lowerBound(), count]
+     */
+    public static class Estimate<Key> {
+        public final Key key;
+        public final long count;
+        public final long error;
+
+        Estimate(Key key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public long lowerBound() {
+            return count - error;
+        }
+
+        public String toString() {
+            return error == 0 ? key + " : " + count : key + " : " + count + " (+-" + error + ")";
+        }
+    }
+
+
+    private final Key[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;       // slots ordered by count, heap[0] is the minimum
+    private final int[] pos;        // position of each slot in the heap
+    private final CountingHashST<Key> slots;    // key -> slot + 1
+    private int size;
+    private long n;
+
+    /**
+     * @param capacity number of keys monitored
+     */
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        keys = (Key[]) new Object[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        pos = new int[capacity];
+        slots = new CountingHashST<>(capacity);
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /** Number of keys added */
+    public long n() {
+        return n;
+    }
+
+    /** Largest possible overestimation of any count */
+    public long errorBound() {
+        return n / keys.length;
+    }
+
+    public void add(Key key) {
+        if (key == null)
+            throw new IllegalArgumentException("argument to add() is null");
+        n++;
+        int s = slots.get(key) - 1;
+        if (s < 0) {
+            if (size < keys.length) {
+                s = size;
+                heap[size] = s;
+                pos[s] = size;
+                size++;
+                swim(pos[s]);       // count 0, goes to the top
+            } else {
+                // replace the key with the smallest count
+                s = heap[0];
+                slots.delete(keys[s]);
+                errors[s] = counts[s];
+            }
+            keys[s] = key;
+            slots.put(key, s + 1);
+        }
+        counts[s]++;
+        sink(pos[s]);
+    }
+
+    private boolean less(int i, int j) {
+        return counts[heap[i]] < counts[heap[j]];
+    }
+
+    private void exch(int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+        pos[heap[i]] = i;
+        pos[heap[j]] = j;
+    }
+
+    private void swim(int k) {
+        while (k > 0 && less(k, (k - 1) / 2)) {
+            exch(k, (k - 1) / 2);
+            k = (k - 1) / 2;
+        }
+    }
+
+    private void sink(int k) {
+        while (2 * k + 1 < size) {
+            int j = 2 * k + 1;
+            if (j + 1 < size && less(j + 1, j))
+                j++;
+            if (!less(j, k))
+                break;
+            exch(k, j);
+            k = j;
+        }
+    }
+
+    /**
+     * Estimate of the count of the key, null if it is not monitored (then its
+     * true count is at most errorBound())
+     */
+    public Estimate<Key> estimate(Key key) {
+        int s = slots.get(key) - 1;
+        return s < 0 ? null : new Estimate<>(key, counts[s], errors[s]);
+    }
+
+    /**
+     * The m monitored keys with the largest counts, in descending order
+     */
+    public List<Estimate<Key>> top(int m) {
+        Integer[] order = new Integer[size];
+        for (int s = 0; s < size; s++)
+            order[s] = s;
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        List<Estimate<Key>> top = new ArrayList<>();
+        for (int i = 0; i < Math.min(m, size); i++)
+            top.add(new Estimate<>(keys[order[i]], counts[order[i]], errors[order[i]]));
+        return top;
+    }
+
+
+    /**
+     * Exact top m of a table of counts, with a MinPQ of size m
+     */
+    public static <Key> List<Estimate<Key>> top(CountingHashST<Key> st, int m) {
+        MinPQ<Estimate<Key>> pq = new MinPQ<>((a, b) -> Long.compare(a.count, b.count));
+        for (Key k : st.keys()) {
+            pq.insert(new Estimate<>(k, st.get(k), 0));
+            if (pq.size() > m)
+                pq.delMin();
+        }
+        List<Estimate<Key>> top = new ArrayList<>();
+        while (!pq.isEmpty())
+            top.add(pq.delMin());
+        Collections.reverse(top);
+        return top;
+    }
+
+
+    public static void main(String[] args) {
+        // Flujo con distribucion de Zipf sobre 100.000 claves
+        int v = 100_000;
+        double[] cdf = new double[v];
+        double sum = 0;
+        for (int i = 0; i < v; i++)
+            cdf[i] = sum += 1.0 / (i + 1);
+        StdRandom.setSeed(42);
+        SpaceSaving<Integer> ss = new SpaceSaving<>(1_000);
+        CountingHashST<Integer> exact = new CountingHashST<>();
+        for (int i = 0; i < 2_000_000; i++) {
+            int k = Arrays.binarySearch(cdf, StdRandom.uniform() * sum);
+            k = k < 0 ? -k - 1 : k;
+            ss.add(k);
+            exact.increment(k);
+        }
+        for (Estimate<Integer> e : ss.top(20)) {
+            long real = exact.get(e.key);
+            assert e.lowerBound() <= real && real <= e.count : e;
+            assert e.error <= ss.errorBound();
+        }
+        List<Estimate<Integer>> top = top(exact, 20);
+        List<Estimate<Integer>> approx = ss.top(20);
+        for (int i = 0; i < 10; i++)
+            StdOut.printf("%6s %8d   %6s %8d (+-%d)%n", top.get(i).key, top.get(i).count, approx.get(i).key,
+                    approx.get(i).count, approx.get(i).error);
+        StdOut.println("Cota de error: " + ss.errorBound());
+    }
+
+}
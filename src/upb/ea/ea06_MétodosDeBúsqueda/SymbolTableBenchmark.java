@@ -0,0 +1,217 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import edu.princeton.cs.algs4.BST;
+import edu.princeton.cs.algs4.BinarySearchST;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.LinearProbingHashST;
+import edu.princeton.cs.algs4.RedBlackBST;
+import edu.princeton.cs.algs4.ST;
+import edu.princeton.cs.algs4.SeparateChainingHashST;
+import edu.princeton.cs.algs4.SequentialSearchST;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import upb.ea.util.Benchmark;
+
+/**
+ * Benchmark of the symbol tables used in ContadorPalabras, on the same
+ * tokenized corpus and several input sizes.
+ *
+ * For every implementation and size n the first n words of the corpus are
+ * inserted with put() and then looked up with get(). Each measurement runs
+ * some warmup iterations that are discarded and then several measured
+ * trials; the report shows the median throughput of put and get and the
+ * bytes allocated per operation (from the thread allocation counter of the
+ * JVM). The options are those of Benchmark; with -forks k every
+ * implementation is measured in k fresh JVMs.
+ *
+ * Usage:
+ * <pre>
+ *   java SymbolTableBenchmark [-warmup w] [-trials t] [-forks k] [-only Name] [corpus.txt ...]
+ * </pre>
+ * Without files a synthetic corpus with Zipf distributed words is used.
+ */
+public class SymbolTableBenchmark {
+
+    /** Common interface over the tables being compared */
+    interface Table {
+        void put(String key, int value);
+        int get(String key);        // 0 if the key is missing
+    }
+
+    private static class Impl {
+        final String name;
+        final Supplier<Table> factory;
+        final int maxN;             // larger inputs take too long for this table
+
+        Impl(String name, Supplier<Table> factory, int maxN) {
+            this.name = name;
+            this.factory = factory;
+            this.maxN = maxN;
+        }
+    }
+
+    private static int value(Integer v) {
+        return v == null ? 0 : v;
+    }
+
+    static final Impl[] IMPLS = {
+        new Impl("SequentialSearchST", () -> new Table() {
+            final SequentialSearchST<String, Integer> st = new SequentialSearchST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, 20_000),
+        new Impl("BinarySearchST", () -> new Table() {
+            final BinarySearchST<String, Integer> st = new BinarySearchST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, 1_000_000),
+        new Impl("BST", () -> new Table() {
+            final BST<String, Integer> st = new BST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("RedBlackBST", () -> new Table() {
+            final RedBlackBST<String, Integer> st = new RedBlackBST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("ST", () -> new Table() {
+            final ST<String, Integer> st = new ST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("TreeMap", () -> new Table() {
+            final TreeMap<String, Integer> st = new TreeMap<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("SeparateChainingHashST", () -> new Table() {
+            final SeparateChainingHashST<String, Integer> st = new SeparateChainingHashST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("LinearProbingHashST", () -> new Table() {
+            final LinearProbingHashST<String, Integer> st = new LinearProbingHashST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return value(st.get(k)); }
+        }, Integer.MAX_VALUE),
+        new Impl("CountingHashST", () -> new Table() {
+            final CountingHashST<String> st = new CountingHashST<>();
+            public void put(String k, int v) { st.put(k, v); }
+            public int get(String k) { return st.get(k); }
+        }, Integer.MAX_VALUE),
+    };
+
+    static final int[] SIZES = { 1_000, 10_000, 100_000, 1_000_000 };
+
+
+    // Keeps the results of get() alive, so the JIT cannot drop the lookups
+    private static long sink;
+
+    /**
+     * One measurement: put then get of the first n words
+     * @return { put ns, put bytes, get ns, get bytes }
+     */
+    static long[] run(Impl impl, String[] words, int n) {
+        long b0 = Benchmark.allocatedBytes();
+        long t0 = System.nanoTime();
+        Table st = impl.factory.get();
+        for (int i = 0; i < n; i++)
+            st.put(words[i], i);
+        long t1 = System.nanoTime();
+        long b1 = Benchmark.allocatedBytes();
+        long sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += st.get(words[i]);
+        long t2 = System.nanoTime();
+        long b2 = Benchmark.allocatedBytes();
+        sink += sum;
+        return new long[] { t1 - t0, b1 - b0, t2 - t1, b2 - b1 };
+    }
+
+    static void measure(Impl impl, String corpus, String[] words, int warmup, int trials) {
+        for (int n : SIZES) {
+            if (n > words.length || n > impl.maxN)
+                continue;
+            for (int w = 0; w < warmup; w++)
+                run(impl, words, n);
+            double[] putOps = new double[trials], getOps = new double[trials];
+            double putBytes = 0, getBytes = 0;
+            for (int t = 0; t < trials; t++) {
+                long[] r = run(impl, words, n);
+                putOps[t] = n * 1e9 / r[0];
+                getOps[t] = n * 1e9 / r[2];
+                putBytes += (double) r[1] / n / trials;
+                getBytes += (double) r[3] / n / trials;
+            }
+            StdOut.printf("%-24s %-12s %9d %14.0f %14.0f %12.1f %12.1f%n", impl.name, corpus, n,
+                    Benchmark.median(putOps), Benchmark.median(getOps), putBytes, getBytes);
+        }
+    }
+
+
+    // Words of the file in lower case, like ContadorPalabras
+    static String[] readCorpus(String filename) {
+        String[] words = new In(filename).readAllStrings();
+        for (int i = 0; i < words.length; i++)
+            words[i] = words[i].toLowerCase();
+        return words;
+    }
+
+    // n words drawn from a Zipf distribution over a vocabulary of v words
+    static String[] zipfCorpus(int n, int v, long seed) {
+        double[] cdf = new double[v];
+        double sum = 0;
+        for (int i = 0; i < v; i++)
+            cdf[i] = sum += 1.0 / (i + 1);
+        StdRandom.setSeed(seed);
+        String[] words = new String[n];
+        for (int i = 0; i < n; i++) {
+            int k = Arrays.binarySearch(cdf, StdRandom.uniform() * sum);
+            words[i] = "w" + (k < 0 ? -k - 1 : k);
+        }
+        return words;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Benchmark.Options opt = Benchmark.Options.parse(args);
+        List<String> files = opt.args;
+
+        if (opt.header)
+            StdOut.printf("%-24s %-12s %9s %14s %14s %12s %12s%n", "Tabla", "Corpus", "N",
+                    "put ops/s", "get ops/s", "put B/op", "get B/op");
+        List<String> names = new ArrayList<>();
+        List<String[]> corpora = new ArrayList<>();
+        if (opt.forks == 0) {
+            if (files.isEmpty()) {
+                names.add("zipf");
+                corpora.add(zipfCorpus(1_000_000, 50_000, 42));
+            }
+            for (String file : files) {
+                names.add(new File(file).getName());
+                corpora.add(readCorpus(file));
+            }
+        }
+        for (Impl impl : IMPLS) {
+            if (!opt.selected(impl.name))
+                continue;
+            if (opt.forks > 0)
+                for (int f = 0; f < opt.forks; f++)
+                    Benchmark.fork(SymbolTableBenchmark.class, opt, impl.name);
+            else
+                for (int c = 0; c < corpora.size(); c++)
+                    measure(impl, names.get(c), corpora.get(c), opt.warmup, opt.trials);
+        }
+        if (sink == 42)
+            StdOut.println();
+    }
+
+}
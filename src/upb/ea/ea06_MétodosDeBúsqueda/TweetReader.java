@@ -0,0 +1,211 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.CsvTokenizer;
+
+/**
+ * Streaming reader of the customer support tweets CSV file.
+ *
+ * The file is read in blocks into a reusable buffer and split into records
+ * with CsvTokenizer, so a quoted text with line breaks is one record (the
+ * old line by line reader dropped those tweets). When a record may continue
+ * past the end of the block, the unread bytes are moved to the front of the
+ * buffer and the next block is appended; a record longer than the whole
+ * buffer doubles it. Only one block is in memory at a time, whatever the
+ * size of the file.
+ *
+ * The reader is an Iterator of tweets. stream() wraps it in a Spliterator
+ * of unknown size, which splits by copying batches of tweets into arrays,
+ * so a parallel stream reads the file in one thread and processes the
+ * batches in the others.
+ *
+ * Records with the wrong number of fields or invalid numbers and dates are
+ * skipped and counted in skipped().
+ */
+public class TweetReader implements Iterator<CustomerSupportTweet>, AutoCloseable {
+
+    static final int BUFFER = 1 << 20;
+    private static final int FIELDS = 7;
+
+    private final FileChannel ch;
+    private final CsvTokenizer tok = new CsvTokenizer();
+    private ByteBuffer buf;
+    private int pos, limit;             // bytes of buf not tokenized yet
+    private boolean eof;
+    private long records;               // records read, including the header
+    private long skipped;
+    private CustomerSupportTweet next;
+
+    public TweetReader(String filename) {
+        this(filename, BUFFER);
+    }
+
+    TweetReader(String filename, int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be positive");
+        try {
+            ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buf = ByteBuffer.allocate(bufferSize);
+        nextRecord();                   // header
+    }
+
+    /** Records read so far, including the header */
+    public long records() {
+        return records;
+    }
+
+    /** Invalid records skipped so far */
+    public long skipped() {
+        return skipped;
+    }
+
+    // Tokenize the next record, reading more of the file while it may be incomplete
+    private boolean nextRecord() {
+        while (true) {
+            tok.reset(buf, pos, limit);
+            boolean found = tok.next();
+            if (found && (eof || !tok.endedAtLimit())) {
+                pos = tok.position();
+                records++;
+                return true;
+            }
+            if (eof)
+                return false;
+            fill();
+        }
+    }
+
+    // Move the unread bytes to the front of the buffer and read after them
+    private void fill() {
+        int rest = limit - pos;
+        if (rest == buf.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(2 * buf.capacity());
+            bigger.put(buf.array(), pos, rest);
+            buf = bigger;
+        } else {
+            System.arraycopy(buf.array(), pos, buf.array(), 0, rest);
+        }
+        pos = 0;
+        limit = rest;
+        buf.limit(buf.capacity()).position(rest);
+        try {
+            int r = ch.read(buf);
+            if (r < 0)
+                eof = true;
+            else
+                limit += r;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean hasNext() {
+        while (next == null && nextRecord()) {
+            if (tok.fieldCount() == 1 && tok.isEmpty(0))
+                continue;               // blank line
+            if (tok.fieldCount() != FIELDS) {
+                skipped++;
+                continue;
+            }
+            try {
+                next = CustomerSupportTweet.fromFields(tok);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                skipped++;
+            }
+        }
+        return next != null;
+    }
+
+    public CustomerSupportTweet next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        CustomerSupportTweet t = next;
+        next = null;
+        return t;
+    }
+
+    public void close() {
+        try {
+            ch.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Stream of the tweets of the file; closing the stream closes the file
+     * @param parallel true for a parallel stream
+     */
+    public static Stream<CustomerSupportTweet> stream(String filename, boolean parallel) {
+        TweetReader reader = new TweetReader(filename);
+        Spliterator<CustomerSupportTweet> split = Spliterators.spliteratorUnknownSize(reader,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(split, parallel).onClose(reader::close);
+    }
+
+    public static Stream<CustomerSupportTweet> stream(String filename) {
+        return stream(filename, false);
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "twcs.csv";
+
+        // Lectura secuencial con buffers de distinto tamaño: el resultado no
+        // depende de donde caen los limites de los bloques
+        Stopwatch sw = new Stopwatch();
+        long n = 0, skipped = 0, textLength = 0;
+        try (TweetReader reader = new TweetReader(filename)) {
+            while (reader.hasNext()) {
+                textLength += reader.next().getText().length();
+                n++;
+            }
+            skipped = reader.skipped();
+        }
+        double tRead = sw.elapsedTime();
+        for (int size : new int[] { 7, 4096 }) {
+            long m = 0, length = 0;
+            try (TweetReader reader = new TweetReader(filename, size)) {
+                while (reader.hasNext()) {
+                    length += reader.next().getText().length();
+                    m++;
+                }
+            }
+            assert m == n && length == textLength : size;
+        }
+
+        // Consulta con un stream paralelo
+        sw = new Stopwatch();
+        long inbound;
+        try (Stream<CustomerSupportTweet> tweets = stream(filename, true)) {
+            inbound = tweets.filter(CustomerSupportTweet::isInbound).count();
+        }
+        double tStream = sw.elapsedTime();
+        try (Stream<CustomerSupportTweet> tweets = stream(filename)) {
+            assert tweets.filter(CustomerSupportTweet::isInbound).count() == inbound;
+        }
+
+        StdOut.printf("%d tweets, %d registros invalidos, %d entrantes%n", n, skipped, inbound);
+        StdOut.printf("Lectura %.3f s, stream paralelo %.3f s%n", tRead, tStream);
+    }
+
+}
@@ -0,0 +1,437 @@
+package upb.ea.ea06_MétodosDeBúsqueda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+import upb.ea.util.StringDictionary;
+
+/**
+ * Rolling metrics of the support tweets per company, computed incrementally
+ * over tweets that arrive in time order.
+ *
+ * Time is divided in slices of sliceSeconds. Each company keeps a ring of
+ * the last {@code slices} slices in primitive arrays: inbound tweets (by the
+ * company mentioned first in the text), responses (outbound tweets that
+ * answer an inbound one, by their author) and a histogram of response times
+ * with geometric bins. The ring also keeps the sums of the whole window,
+ * so the sliding window metrics are O(1) (O(bins) for the median) and a
+ * slice that leaves the window is subtracted from them. When a slice closes
+ * its metrics are reported to the listener, which gives the tumbling
+ * windows. The memory is O(companies x slices x bins), whatever the number
+ * of tweets replayed.
+ *
+ * The response time needs the time of the question, so the inbound tweets
+ * of the last maxResponseSeconds are kept in a hash table of ids. A tweet
+ * older than the window is counted in late() and ignored; a late tweet
+ * inside the window is added to the sliding metrics but not to the tumbling
+ * report of its slice, which was already sent.
+ */
+public class TweetWindows {
+
+    /**
+     * Receives the metrics of each company for every slice that closes
+     */
+    public interface Listener {
+        void closed(long sliceStart, String company, long inbound, long responses, double medianResponseSeconds);
+    }
+
+    // Response time bins: 0 seconds, then bounds growing by GAMMA up to about 30 days
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    static final int BINS = 2 + (int) Math.ceil(Math.log(30 * 86400) / LOG_GAMMA);
+
+    private static int bin(long seconds) {
+        if (seconds <= 0)
+            return 0;
+        return Math.min(BINS - 1, 1 + (int) Math.ceil(Math.log(seconds) / LOG_GAMMA));
+    }
+
+    // Representative value of a bin, within 5% of every value in it
+    private static double value(int bin) {
+        return bin == 0 ? 0 : 2 * Math.pow(GAMMA, bin - 1) / (GAMMA + 1);
+    }
+
+    /**
+     * Ring of slices of one company
+     */
+    private class Company {
+        final String name;
+        final long[] inbound = new long[slices];
+        final long[] responses = new long[slices];
+        final int[] times = new int[slices * BINS];     // histogram of slice s at s * BINS
+        long inboundSum, responseSum;
+        final long[] timeSum = new long[BINS];
+
+        Company(String name) {
+            this.name = name;
+        }
+
+        void clear(int slot) {
+            inboundSum -= inbound[slot];
+            responseSum -= responses[slot];
+            inbound[slot] = 0;
+            responses[slot] = 0;
+            for (int b = 0, i = slot * BINS; b < BINS; b++, i++) {
+                timeSum[b] -= times[i];
+                times[i] = 0;
+            }
+        }
+    }
+
+    private final int sliceSeconds;
+    private final int slices;
+    private final long maxResponseSeconds;
+    private final StringDictionary names = new StringDictionary();
+    private final ArrayList<Company> companies = new ArrayList<>();
+    private final PendingQuestions pending = new PendingQuestions();
+    private Listener listener;
+    private long current = Long.MIN_VALUE;      // newest slice
+    private long late;
+
+    /**
+     * @param sliceSeconds length of a slice (the tumbling window)
+     * @param slices number of slices of the sliding window
+     * @param maxResponseSeconds longest response time that is measured
+     */
+    public TweetWindows(int sliceSeconds, int slices, long maxResponseSeconds) {
+        if (sliceSeconds < 1 || slices < 1)
+            throw new IllegalArgumentException("sliceSeconds and slices must be positive");
+        if (maxResponseSeconds < 0)
+            throw new IllegalArgumentException("maxResponseSeconds must not be negative");
+        this.sliceSeconds = sliceSeconds;
+        this.slices = slices;
+        this.maxResponseSeconds = maxResponseSeconds;
+    }
+
+    /** Slices of one minute, sliding window of one hour, responses up to one week */
+    public TweetWindows() {
+        this(60, 60, 7 * 86400);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    private int slot(long slice) {
+        return (int) Math.floorMod(slice, (long) slices);
+    }
+
+    private Company company(String name) {
+        int c = names.encode(name);
+        if (c == companies.size())
+            companies.add(new Company(name));
+        return companies.get(c);
+    }
+
+    // Close the slices before the given one and make room for it in the rings
+    private void advance(long slice) {
+        if (current == Long.MIN_VALUE) {
+            current = slice;
+            return;
+        }
+        report(current);
+        long steps = Math.min(slice - current, slices);
+        for (long s = slice - steps + 1; s <= slice; s++)
+            for (Company c : companies)
+                c.clear(slot(s));
+        current = slice;
+    }
+
+    private void report(long slice) {
+        if (listener == null)
+            return;
+        int slot = slot(slice);
+        long[] hist = new long[BINS];
+        for (Company c : companies) {
+            if (c.inbound[slot] == 0 && c.responses[slot] == 0)
+                continue;
+            for (int b = 0; b < BINS; b++)
+                hist[b] = c.times[slot * BINS + b];
+            listener.closed(slice * sliceSeconds, c.name, c.inbound[slot], c.responses[slot],
+                    median(hist, c.responses[slot]));
+        }
+    }
+
+    /**
+     * Add the next tweet; the tweets must come in order of creation, up to
+     * the length of the window
+     */
+    public void add(CustomerSupportTweet t) {
+        long time = t.getCreatedAt();
+        long slice = Math.floorDiv(time, (long) sliceSeconds);
+        if (current != Long.MIN_VALUE && slice <= current - slices) {
+            late++;
+            return;
+        }
+        if (slice > current)
+            advance(slice);
+        int slot = slot(slice);
+        if (t.isInbound()) {
+            pending.put(t.getTweetId(), time);
+            String name = mentioned(t.getText());
+            if (name != null) {
+                Company c = company(name);
+                c.inbound[slot]++;
+                c.inboundSum++;
+            }
+        } else {
+            long question = ConversationThreads.parseId(t.getInResponseToTweetId());
+            long asked = question < 0 ? -1 : pending.remove(question);
+            if (asked >= 0 && time - asked <= maxResponseSeconds) {
+                int b = bin(time - asked);
+                Company c = company(t.getAuthorId());
+                c.responses[slot]++;
+                c.responseSum++;
+                c.times[slot * BINS + b]++;
+                c.timeSum[b]++;
+            }
+        }
+        pending.expire(current * sliceSeconds - maxResponseSeconds);
+    }
+
+    /** Close the newest slice, at the end of the input */
+    public void flush() {
+        if (current != Long.MIN_VALUE)
+            report(current);
+    }
+
+    // First @name of the text, the company a customer writes to
+    static String mentioned(String text) {
+        int at = text.indexOf('@');
+        if (at < 0)
+            return null;
+        int end = at + 1;
+        while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end)) || text.charAt(end) == '_'))
+            end++;
+        return end > at + 1 ? text.substring(at + 1, end) : null;
+    }
+
+    private static double median(long[] hist, long count) {
+        if (count == 0)
+            return Double.NaN;
+        long rank = (count + 1) / 2, seen = 0;
+        for (int b = 0; b < BINS; b++) {
+            seen += hist[b];
+            if (seen >= rank)
+                return value(b);
+        }
+        return value(BINS - 1);
+    }
+
+
+    /** Companies seen so far */
+    public List<String> companies() {
+        List<String> result = new ArrayList<>();
+        for (Company c : companies)
+            result.add(c.name);
+        return result;
+    }
+
+    /** Tweets ignored because they were older than the window */
+    public long late() {
+        return late;
+    }
+
+    /** Inbound tweets of the company in the sliding window */
+    public long inbound(String company) {
+        int c = names.code(company);
+        return c < 0 ? 0 : companies.get(c).inboundSum;
+    }
+
+    /** Responses of the company in the sliding window */
+    public long responses(String company) {
+        int c = names.code(company);
+        return c < 0 ? 0 : companies.get(c).responseSum;
+    }
+
+    /** Responses per inbound tweet in the sliding window, NaN without inbound tweets */
+    public double responseRate(String company) {
+        long in = inbound(company);
+        return in == 0 ? Double.NaN : (double) responses(company) / in;
+    }
+
+    /** Approximate (5%) median response time in the sliding window, NaN without responses */
+    public double medianResponseSeconds(String company) {
+        int c = names.code(company);
+        if (c < 0)
+            return Double.NaN;
+        return median(companies.get(c).timeSum, companies.get(c).responseSum);
+    }
+
+
+    /**
+     * Times of the recent inbound tweets by id: open addressing over long
+     * arrays, plus a FIFO of the ids in order of arrival to expire them
+     */
+    private static class PendingQuestions {
+        private long[] keys = new long[16];         // id + 1, 0 is empty
+        private long[] times = new long[16];
+        private int size;
+        private long[] fifoIds = new long[16];
+        private long[] fifoTimes = new long[16];
+        private int head, count;
+
+        private int hash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+        }
+
+        void put(long id, long time) {
+            if (2 * (size + 1) > keys.length)
+                resize(2 * keys.length);
+            int i = hash(id);
+            while (keys[i] != 0 && keys[i] != id + 1)
+                i = (i + 1) & (keys.length - 1);
+            if (keys[i] == 0)
+                size++;
+            keys[i] = id + 1;
+            times[i] = time;
+            if (count == fifoIds.length) {
+                long[] ids = new long[2 * count], ts = new long[2 * count];
+                for (int k = 0; k < count; k++) {
+                    ids[k] = fifoIds[(head + k) % count];
+                    ts[k] = fifoTimes[(head + k) % count];
+                }
+                fifoIds = ids;
+                fifoTimes = ts;
+                head = 0;
+            }
+            int tail = (head + count++) % fifoIds.length;
+            fifoIds[tail] = id;
+            fifoTimes[tail] = time;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys, oldTimes = times;
+            keys = new long[capacity];
+            times = new long[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0)
+                    continue;
+                int j = hash(oldKeys[i] - 1);
+                while (keys[j] != 0)
+                    j = (j + 1) & (capacity - 1);
+                keys[j] = oldKeys[i];
+                times[j] = oldTimes[i];
+            }
+        }
+
+        /** Remove the id, return its time or -1 if it is not pending */
+        long remove(long id) {
+            int mask = keys.length - 1;
+            int i = hash(id);
+            while (keys[i] != id + 1) {
+                if (keys[i] == 0)
+                    return -1;
+                i = (i + 1) & mask;
+            }
+            long time = times[i];
+            // backward shift: move up the entries of the cluster that probed past i
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (keys[j] == 0)
+                    break;
+                int home = hash(keys[j] - 1);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    times[i] = times[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            size--;
+            return time;
+        }
+
+        /** Forget the questions asked before the given time */
+        void expire(long before) {
+            while (count > 0 && fifoTimes[head] < before) {
+                remove(fifoIds[head]);
+                head = (head + 1) % fifoIds.length;
+                count--;
+            }
+        }
+    }
+
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "twcs.csv";
+
+        // El archivo no viene ordenado por fecha: ordenar antes de reproducirlo
+        ArrayList<CustomerSupportTweet> tweets = CustomerSupportTweet.leerTweetsCsv(filename);
+        tweets.sort((a, b) -> Long.compare(a.getCreatedAt(), b.getCreatedAt()));
+
+        // Ventanas fijas de una hora y ventana deslizante de 24 horas
+        TweetWindows w = new TweetWindows(3600, 24, 7 * 86400);
+        long[] tumblingInbound = new long[1];
+        w.setListener((start, company, inbound, responses, median) -> tumblingInbound[0] += inbound);
+        Stopwatch sw = new Stopwatch();
+        for (CustomerSupportTweet t : tweets)
+            w.add(t);
+        w.flush();
+        double tReplay = sw.elapsedTime();
+
+        // Verificar la ultima ventana deslizante recorriendo todos los tweets
+        long end = tweets.get(tweets.size() - 1).getCreatedAt();
+        long from = (Math.floorDiv(end, 3600L) - 23) * 3600;
+        StringDictionary dict = new StringDictionary();
+        long[] inbound = new long[1000], responses = new long[1000];
+        List<List<Long>> times = new ArrayList<>();
+        CountingHashST<Long> asked = new CountingHashST<>();
+        long[] askedAt = new long[tweets.size()];
+        int questions = 0;
+        long totalInbound = 0;
+        for (CustomerSupportTweet t : tweets) {
+            if (t.isInbound()) {
+                askedAt[questions++] = t.getCreatedAt();
+                asked.put((long) t.getTweetId(), questions);
+                if (mentioned(t.getText()) != null)
+                    totalInbound++;
+            }
+            boolean inWindow = t.getCreatedAt() >= from;
+            if (t.isInbound()) {
+                String name = mentioned(t.getText());
+                if (inWindow && name != null && dict.encode(name) < inbound.length)
+                    inbound[dict.code(name)]++;
+            } else {
+                // solo cuenta la primera respuesta a cada pregunta
+                long q = ConversationThreads.parseId(t.getInResponseToTweetId());
+                int k = q < 0 ? 0 : asked.get(q);
+                if (k > 0)
+                    asked.delete(q);
+                if (!inWindow || k == 0 || t.getCreatedAt() - askedAt[k - 1] > 7 * 86400)
+                    continue;
+                int c = dict.encode(t.getAuthorId());
+                if (c < responses.length) {
+                    responses[c]++;
+                    while (times.size() <= c)
+                        times.add(new ArrayList<>());
+                    times.get(c).add(t.getCreatedAt() - askedAt[k - 1]);
+                }
+            }
+        }
+        assert tumblingInbound[0] == totalInbound;
+        for (int c = 0; c < Math.min(dict.size(), inbound.length); c++) {
+            String name = dict.decode(c);
+            assert w.inbound(name) == inbound[c] : name;
+            assert w.responses(name) == responses[c] : name;
+            if (responses[c] > 0) {
+                long[] sorted = times.get(c).stream().mapToLong(Long::longValue).sorted().toArray();
+                long exact = sorted[(sorted.length - 1) / 2];
+                assert Math.abs(w.medianResponseSeconds(name) - exact) <= 0.05 * exact + 1 : name;
+            }
+        }
+
+        StdOut.printf("%d tweets reproducidos en %.3f s, %d tardios%n", tweets.size(), tReplay, w.late());
+        StdOut.println("Ultimas 24 horas:");
+        List<String> names = w.companies();
+        names.sort((a, b) -> Long.compare(w.inbound(b), w.inbound(a)));
+        for (String name : names.subList(0, Math.min(10, names.size())))
+            StdOut.printf("%-20s %7d entrantes, tasa de respuesta %5.2f, mediana %8.1f min%n", name,
+                    w.inbound(name), w.responseRate(name), w.medianResponseSeconds(name) / 60);
+    }
+
+}
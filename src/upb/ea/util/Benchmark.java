@@ -0,0 +1,118 @@
+package upb.ea.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pieces shared by the benchmark harnesses: the thread allocation counter,
+ * the median of the trials, the command line options and the launch of a
+ * measurement in a fresh JVM.
+ *
+ * Every harness takes the options
+ * <pre>
+ *   [-warmup w] [-trials t] [-forks k] [-only Name] [-header true|false]
+ * </pre>
+ * plus its own "-name value" options and positional arguments. With -forks k
+ * each implementation is measured in k new JVMs with the same classpath, so
+ * the JIT profile of one does not affect the next one.
+ */
+public final class Benchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmark() { }
+
+    /** Bytes allocated so far by the current thread */
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Median of the values, the mean of the two middle ones if their number is even */
+    public static double median(double[] a) {
+        if (a.length == 0)
+            throw new IllegalArgumentException("No values");
+        double[] s = a.clone();
+        Arrays.sort(s);
+        return s.length % 2 == 1 ? s[s.length / 2] : (s[s.length / 2 - 1] + s[s.length / 2]) / 2;
+    }
+
+
+    /**
+     * Options of a benchmark run
+     */
+    public static final class Options {
+        public int warmup = 3;
+        public int trials = 5;
+        public int forks = 0;
+        public boolean header = true;
+        public String only;
+        /** Values of the options of the harness, by name (with the '-') */
+        public final Map<String, String> extra = new LinkedHashMap<>();
+        /** Arguments that are not options */
+        public final List<String> args = new ArrayList<>();
+
+        /**
+         * @param extraOptions names of the "-name value" options of the harness
+         * @throws IllegalArgumentException on an unknown option or a missing value
+         */
+        public static Options parse(String[] args, String... extraOptions) {
+            List<String> known = Arrays.asList(extraOptions);
+            Options o = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                if (!a.startsWith("-")) {
+                    o.args.add(a);
+                    continue;
+                }
+                if (i + 1 == args.length)
+                    throw new IllegalArgumentException("Missing value of " + a);
+                String v = args[++i];
+                switch (a) {
+                    case "-warmup": o.warmup = Integer.parseInt(v); break;
+                    case "-trials": o.trials = Integer.parseInt(v); break;
+                    case "-forks":  o.forks = Integer.parseInt(v); break;
+                    case "-only":   o.only = v; break;
+                    case "-header": o.header = Boolean.parseBoolean(v); break;
+                    default:
+                        if (!known.contains(a))
+                            throw new IllegalArgumentException("Unknown option " + a);
+                        o.extra.put(a, v);
+                }
+            }
+            if (o.warmup < 0 || o.trials < 1 || o.forks < 0)
+                throw new IllegalArgumentException("warmup and forks must be non-negative and trials positive");
+            return o;
+        }
+
+        /** Whether the implementation is measured, see -only */
+        public boolean selected(String name) {
+            return only == null || only.equals(name);
+        }
+    }
+
+    /**
+     * Measure one implementation in a new JVM: runs the main of the harness
+     * with the same options, -forks 0, -header false and -only impl
+     */
+    public static void fork(Class<?> harness, Options o, String impl) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>(Arrays.asList(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), harness.getName(),
+                "-forks", "0", "-header", "false", "-only", impl,
+                "-warmup", "" + o.warmup, "-trials", "" + o.trials));
+        for (Map.Entry<String, String> e : o.extra.entrySet())
+            cmd.addAll(Arrays.asList(e.getKey(), e.getValue()));
+        cmd.addAll(o.args);
+        int status = new ProcessBuilder(cmd).inheritIO().start().waitFor();
+        if (status != 0)
+            throw new IllegalStateException("Benchmark of " + impl + " failed with status " + status);
+    }
+
+}
@@ -0,0 +1,429 @@
+package upb.ea.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Single pass, quote aware CSV tokenizer.
+ *
+ * Replaces the regular expression
+ * <code>line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1)</code>
+ * that was copied in several loaders. The lookahead rescans the rest of the
+ * line for every comma, so it is quadratic in the number of quotes of a line.
+ *
+ * The tokenizer walks the input once and records the start/end offset of
+ * every field of the current record, so no <code>String</code> is created
+ * unless the caller asks for it with {@link #field(int)}. Numbers can be
+ * decoded directly from the buffer with {@link #parseInt(int)}.
+ *
+ * The input is either a <code>char[]</code> (or a <code>String</code>) or a
+ * <code>ByteBuffer</code> with UTF-8 text. Since the delimiter, the quote and
+ * the line breaks are ASCII they can never be part of a multi-byte sequence,
+ * so the same state machine works for both.
+ *
+ * Quoted fields are returned without the surrounding quotes and with the
+ * escaped quotes (<code>""</code>) collapsed. A quoted field may contain line
+ * breaks; a record ends at the first line break outside quotes.
+ *
+ * The tokenizer is also a CharSequence over the current region, indexed by
+ * the same offsets as start(i)/end(i), so a field can be decoded in place
+ * (e.g. with FastDates). Over bytes, charAt returns each byte as a char,
+ * which is only meaningful for ASCII fields such as numbers and dates.
+ *
+ * An instance reuses its buffers between records and is not thread safe:
+ * use one tokenizer per thread.
+ */
+public final class CsvTokenizer implements CharSequence {
+
+    private final char delimiter;
+
+    // Source of the current region: either chars or bytes is not null
+    private char[] chars;
+    private ByteBuffer bytes;
+    private int pos;
+    private int limit;
+
+    // Fields of the current record
+    private int n;
+    private int recordStart;
+    private boolean endedAtLimit;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+
+    // Reusable buffers for reset(String) and field(int) over bytes
+    private char[] lineBuffer = new char[256];
+    private byte[] scratch = new byte[256];
+
+    public CsvTokenizer() {
+        this(',');
+    }
+
+    public CsvTokenizer(char delimiter) {
+        if (delimiter == '"' || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Invalid delimiter: " + delimiter);
+        this.delimiter = delimiter;
+    }
+
+
+    /**
+     * Tokenize the characters buf[from..to)
+     */
+    public void reset(char[] buf, int from, int to) {
+        chars = buf;
+        bytes = null;
+        pos = from;
+        limit = to;
+        n = 0;
+    }
+
+    /**
+     * Tokenize the UTF-8 bytes buf[from..to), using absolute positions
+     * (the position and limit of the buffer are not modified)
+     */
+    public void reset(ByteBuffer buf, int from, int to) {
+        chars = null;
+        bytes = buf;
+        pos = from;
+        limit = to;
+        n = 0;
+    }
+
+    /**
+     * Tokenize a single line, copying it into an internal reusable buffer
+     */
+    public void reset(String line) {
+        int len = line.length();
+        if (len > lineBuffer.length)
+            lineBuffer = new char[Math.max(len, 2 * lineBuffer.length)];
+        line.getChars(0, len, lineBuffer, 0);
+        reset(lineBuffer, 0, len);
+    }
+
+    /**
+     * Tokenize a single line
+     * @return number of fields in the line, 0 if the line is empty
+     */
+    public int parse(String line) {
+        reset(line);
+        next();
+        return n;
+    }
+
+
+    /**
+     * Advance to the next record of the current region.
+     * @return false if there are no more characters in the region
+     */
+    public boolean next() {
+        n = 0;
+        endedAtLimit = false;
+        recordStart = pos;
+        if (pos >= limit)
+            return false;
+        int p = pos;
+        while (true) {
+            int start, end;
+            boolean esc = false;
+            int c = p < limit ? at(p) : -1;
+            if (c == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= limit) {             // unterminated quote
+                        end = p;
+                        break;
+                    }
+                    if (at(p) == '"') {
+                        if (p + 1 < limit && at(p + 1) == '"') {
+                            esc = true;
+                            p += 2;
+                            continue;
+                        }
+                        end = p++;
+                        break;
+                    }
+                    p++;
+                }
+                // ignore anything between the closing quote and the delimiter
+                while (p < limit && (c = at(p)) != delimiter && c != '\n' && c != '\r')
+                    p++;
+            } else {
+                start = p;
+                while (p < limit && (c = at(p)) != delimiter && c != '\n' && c != '\r')
+                    p++;
+                end = p;
+            }
+            addField(start, end, esc);
+
+            if (p >= limit) {
+                endedAtLimit = true;
+                pos = p;
+                return true;
+            }
+            c = at(p);
+            if (c == delimiter) {
+                p++;
+                continue;
+            }
+            // line break: \n, \r or \r\n
+            if (c == '\r') {
+                if (p + 1 >= limit)
+                    endedAtLimit = true;      // may be the first half of \r\n
+                else if (at(p + 1) == '\n')
+                    p++;
+            }
+            pos = p + 1;
+            return true;
+        }
+    }
+
+    private void addField(int start, int end, boolean esc) {
+        if (n == starts.length) {
+            int m = 2 * n;
+            starts = Arrays.copyOf(starts, m);
+            ends = Arrays.copyOf(ends, m);
+            escaped = Arrays.copyOf(escaped, m);
+        }
+        starts[n] = start;
+        ends[n] = end;
+        escaped[n] = esc;
+        n++;
+    }
+
+    private char at(int p) {
+        return chars != null ? chars[p] : (char) (bytes.get(p) & 0xFF);
+    }
+
+    /** End of the current region */
+    @Override
+    public int length() {
+        return limit;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return at(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int p = start; p < end; p++)
+            sb.append(at(p));
+        return sb;
+    }
+
+
+    /** Position where the next record starts */
+    public int position() {
+        return pos;
+    }
+
+    /** Position where the current record starts */
+    public int recordStart() {
+        return recordStart;
+    }
+
+    /**
+     * True if the current record was terminated by the end of the region
+     * rather than by a line break, i.e. it may continue after the region.
+     */
+    public boolean endedAtLimit() {
+        return endedAtLimit;
+    }
+
+    /** Number of fields of the current record */
+    public int fieldCount() {
+        return n;
+    }
+
+    /** Offset of the first character of field i (after the opening quote) */
+    public int start(int i) {
+        check(i);
+        return starts[i];
+    }
+
+    /** Offset after the last character of field i (before the closing quote) */
+    public int end(int i) {
+        check(i);
+        return ends[i];
+    }
+
+    public int length(int i) {
+        check(i);
+        return ends[i] - starts[i];
+    }
+
+    public boolean isEmpty(int i) {
+        check(i);
+        return ends[i] == starts[i];
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= n)
+            throw new IndexOutOfBoundsException("Field " + i + " of a record with " + n + " fields");
+    }
+
+
+    /**
+     * Materialize field i as a String
+     */
+    public String field(int i) {
+        check(i);
+        int s = starts[i];
+        int len = ends[i] - s;
+        String str;
+        if (chars != null) {
+            str = new String(chars, s, len);
+        } else {
+            if (len > scratch.length)
+                scratch = new byte[Math.max(len, 2 * scratch.length)];
+            bytes.get(s, scratch, 0, len);
+            str = new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+        return escaped[i] ? str.replace("\"\"", "\"") : str;
+    }
+
+    /**
+     * Decode field i as an int without creating a String
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int parseInt(int i) {
+        long v = parseLong(i);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE)
+            throw invalidNumber(i);
+        return (int) v;
+    }
+
+    /**
+     * Decode field i as a long without creating a String
+     * @throws NumberFormatException if the field is not a valid long
+     */
+    public long parseLong(int i) {
+        check(i);
+        int p = starts[i];
+        int e = ends[i];
+        boolean negative = false;
+        if (p < e && (at(p) == '-' || at(p) == '+')) {
+            negative = at(p) == '-';
+            p++;
+        }
+        if (p >= e || e - p > 18)
+            throw invalidNumber(i);
+        long v = 0;
+        for (; p < e; p++) {
+            int d = at(p) - '0';
+            if (d < 0 || d > 9)
+                throw invalidNumber(i);
+            v = 10 * v + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * Decode field i as a float
+     * @throws NumberFormatException if the field is not a valid float
+     */
+    public float parseFloat(int i) {
+        return Float.parseFloat(field(i));
+    }
+
+    /**
+     * Same rule as Boolean.parseBoolean: true if the field is "true", ignoring case
+     */
+    public boolean parseBoolean(int i) {
+        check(i);
+        String t = "true";
+        if (ends[i] - starts[i] != t.length())
+            return false;
+        for (int k = 0; k < t.length(); k++)
+            if (Character.toLowerCase(at(starts[i] + k)) != t.charAt(k))
+                return false;
+        return true;
+    }
+
+    private NumberFormatException invalidNumber(int i) {
+        return new NumberFormatException("For input string: \"" + field(i) + "\"");
+    }
+
+
+    // The regular expression this class replaces, kept for the benchmark
+    private static final String QUOTE_AWARE_SPLIT = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
+
+    private static String unquote(String s) {
+        if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"')
+            return s.substring(1, s.length() - 1).replace("\"\"", "\"");
+        return s;
+    }
+
+    public static void main(String[] args) {
+        CsvTokenizer tok = new CsvTokenizer();
+
+        // Pruebas basicas
+        assert tok.parse("a,b,,d,") == 5;
+        assert tok.field(0).equals("a") && tok.isEmpty(2) && tok.isEmpty(4);
+        assert tok.parse("1,\"Atlanta, GA\",-15") == 3;
+        assert tok.field(1).equals("Atlanta, GA");
+        assert tok.parseInt(0) == 1 && tok.parseInt(2) == -15;
+        assert tok.parse("\"say \"\"hi\"\"\",True") == 2;
+        assert tok.field(0).equals("say \"hi\"") && tok.parseBoolean(1);
+
+        char[] text = "x,\"line\nbreak\"\r\ny,z".toCharArray();
+        tok.reset(text, 0, text.length);
+        assert tok.next() && tok.fieldCount() == 2 && tok.field(1).equals("line\nbreak");
+        assert tok.next() && tok.fieldCount() == 2 && tok.field(0).equals("y") && tok.endedAtLimit();
+        assert !tok.next();
+
+        ByteBuffer bb = ByteBuffer.wrap("Bogotá,\"Medellín, ANT\",7\n".getBytes(StandardCharsets.UTF_8));
+        tok.reset(bb, 0, bb.limit());
+        assert tok.next() && tok.field(0).equals("Bogotá") && tok.field(1).equals("Medellín, ANT");
+        assert tok.parseInt(2) == 7 && !tok.endedAtLimit();
+
+        // Comparacion de desempeño con la expresion regular
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String[] lines = new String[n];
+        for (int i = 0; i < n; i++)
+            lines[i] = "2023,2023-01-" + (1 + i % 28) + ",DL,19790," + i + ",10397,ATL,\"Atlanta, GA\",GA,"
+                    + "12892,LAX,\"Los Angeles, CA\",CA," + (i % 50) + "," + (i % 70 - 20) + ",,,,,,";
+
+        for (String line : lines) {
+            String[] expected = line.split(QUOTE_AWARE_SPLIT, -1);
+            assert tok.parse(line) == expected.length;
+            for (int k = 0; k < expected.length; k++)
+                assert tok.field(k).equals(unquote(expected[k]));
+        }
+
+        long checksum = 0;
+        Stopwatch sw = new Stopwatch();
+        for (String line : lines) {
+            String[] fields = line.split(QUOTE_AWARE_SPLIT, -1);
+            checksum += fields.length + Integer.parseInt(fields[4]);
+        }
+        double tRegex = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        for (String line : lines) {
+            tok.parse(line);
+            checksum -= tok.fieldCount() + tok.parseInt(4);
+        }
+        double tTokenizer = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        for (String line : lines) {
+            tok.parse(line);
+            for (int k = 0; k < tok.fieldCount(); k++)
+                checksum += tok.field(k).length();
+        }
+        double tStrings = sw.elapsedTime();
+
+        StdOut.println("Lineas: " + n + " (checksum " + checksum + ")");
+        StdOut.printf("split con regex       : %8.3f s  %12.0f lineas/s%n", tRegex, n / tRegex);
+        StdOut.printf("CsvTokenizer          : %8.3f s  %12.0f lineas/s%n", tTokenizer, n / tTokenizer);
+        StdOut.printf("CsvTokenizer + String : %8.3f s  %12.0f lineas/s%n", tStrings, n / tStrings);
+    }
+
+}
@@ -0,0 +1,399 @@
+package upb.ea.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import edu.princeton.cs.algs4.MinPQ;
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Sort of more records than fit in the heap.
+ *
+ * The input is read into a list until the memory budget is used, the list
+ * is sorted and written to a temporary file (a run) with a RecordCodec, each
+ * record preceded by its length. The runs are then merged with a MinPQ of
+ * run cursors, each one reading its file through a buffer of bufferSize
+ * bytes. If there are more runs than buffers fit in the budget, groups of
+ * runs are merged into longer runs first (several merge passes).
+ *
+ * The memory used by a record is estimated as its encoded size plus
+ * RECORD_OVERHEAD bytes for the object header and references. If all the
+ * input fits in the budget it is sorted in memory and nothing is written.
+ *
+ * The sort is stable: equal records keep the order of the input. The
+ * result is an iterator that must be closed to delete the runs.
+ *
+ * @param <T> type of the records
+ */
+public class ExternalSort<T> {
+
+    static final int DEFAULT_BUFFER = 64 * 1024;
+    static final int RECORD_OVERHEAD = 64;
+
+    private final RecordCodec<T> codec;
+    private final Comparator<? super T> order;
+    private final long memoryBudget;
+    private final int bufferSize;
+    private final Path tmpDir;
+    private int runs;
+    private int passes;
+
+    public ExternalSort(RecordCodec<T> codec, Comparator<? super T> order, long memoryBudget) {
+        this(codec, order, memoryBudget, DEFAULT_BUFFER, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @param memoryBudget bytes of heap for the records of a run and for the merge buffers
+     * @param bufferSize bytes of the buffer used to read or write a run
+     * @param tmpDir directory of the runs
+     */
+    public ExternalSort(RecordCodec<T> codec, Comparator<? super T> order, long memoryBudget, int bufferSize,
+            Path tmpDir) {
+        if (memoryBudget < 1 || bufferSize < 16)
+            throw new IllegalArgumentException("memoryBudget must be positive and bufferSize at least 16");
+        this.codec = codec;
+        this.order = order;
+        this.memoryBudget = memoryBudget;
+        this.bufferSize = bufferSize;
+        this.tmpDir = tmpDir;
+    }
+
+    /** Runs written by the last sort, including the ones of the merge passes */
+    public int runs() {
+        return runs;
+    }
+
+    /** Merge passes of the last sort that wrote intermediate runs */
+    public int passes() {
+        return passes;
+    }
+
+
+    /**
+     * Sort the input
+     * @return the records in order; close it to delete the temporary files
+     */
+    public Sorted<T> sort(Iterator<? extends T> input) {
+        runs = 0;
+        passes = 0;
+        List<Path> files = new ArrayList<>();
+        List<Path> created = new ArrayList<>();     // to clean up after an error
+        try {
+            ArrayList<T> buffer = new ArrayList<>();
+            long used = 0;
+            while (input.hasNext()) {
+                T r = input.next();
+                buffer.add(r);
+                used += codec.size(r) + RECORD_OVERHEAD;
+                if (used >= memoryBudget) {
+                    buffer.sort(order);
+                    files.add(write(buffer.iterator(), created));
+                    buffer.clear();
+                    used = 0;
+                }
+            }
+            buffer.sort(order);
+            if (files.isEmpty())
+                return new Sorted<>(buffer.iterator());
+            if (!buffer.isEmpty())
+                files.add(write(buffer.iterator(), created));
+            buffer = null;
+
+            int fanIn = (int) Math.max(2, Math.min(1024, memoryBudget / bufferSize));
+            while (files.size() > fanIn) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < files.size(); i += fanIn) {
+                    List<Path> group = files.subList(i, Math.min(files.size(), i + fanIn));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    try (Sorted<T> s = new Sorted<>(open(group), order)) {
+                        merged.add(write(s, created));
+                    }
+                }
+                files = merged;
+                passes++;
+            }
+            return new Sorted<>(open(files), order);
+        } catch (IOException | RuntimeException e) {
+            // a failing codec, comparator or input must not leave runs behind either
+            for (Path f : created)
+                delete(f);
+            if (e instanceof IOException)
+                throw new UncheckedIOException((IOException) e);
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Sort the input and pass the records in order to the output
+     */
+    public void sort(Iterator<? extends T> input, Consumer<? super T> output) {
+        try (Sorted<T> s = sort(input)) {
+            while (s.hasNext())
+                output.accept(s.next());
+        }
+    }
+
+
+    // Write the records to a new run
+    private Path write(Iterator<? extends T> records, List<Path> created) throws IOException {
+        Path path = Files.createTempFile(tmpDir, "run", ".bin");
+        created.add(path);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate(bufferSize);
+            while (records.hasNext()) {
+                T r = records.next();
+                int size = codec.size(r);
+                if (buf.remaining() < 4 + size) {
+                    flush(ch, buf);
+                    if (buf.capacity() < 4 + size)
+                        buf = ByteBuffer.allocate(4 + size);
+                }
+                buf.putInt(size);
+                int end = buf.position() + size;
+                codec.write(r, buf);
+                if (buf.position() != end)
+                    throw new IllegalStateException("The codec wrote " + (buf.position() - end + size)
+                            + " bytes instead of " + size);
+            }
+            flush(ch, buf);
+        } catch (IOException | RuntimeException e) {
+            delete(path);
+            throw e;
+        }
+        runs++;
+        return path;
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            ch.write(buf);
+        buf.clear();
+    }
+
+    private List<Run<T>> open(List<Path> files) throws IOException {
+        List<Run<T>> list = new ArrayList<>();
+        try {
+            for (Path f : files)
+                list.add(new Run<>(f, list.size(), codec, bufferSize));
+        } catch (IOException e) {
+            for (Run<T> r : list)
+                r.close();
+            throw e;
+        }
+        return list;
+    }
+
+    private static void delete(Path f) {
+        try {
+            Files.deleteIfExists(f);
+        } catch (IOException e) {
+            // nothing else to do, it is a temporary file
+        }
+    }
+
+
+    /**
+     * Cursor over the records of a run
+     */
+    private static class Run<T> {
+        final Path path;
+        final int index;            // order of the run, to keep the sort stable
+        final RecordCodec<T> codec;
+        final FileChannel ch;
+        ByteBuffer buf;
+        T head;                     // next record, null at the end
+
+        Run(Path path, int index, RecordCodec<T> codec, int bufferSize) throws IOException {
+            this.path = path;
+            this.index = index;
+            this.codec = codec;
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+            buf = ByteBuffer.allocate(bufferSize);
+            buf.flip();
+            advance();
+        }
+
+        // Make n bytes available in the buffer, false at the end of the file
+        private boolean ensure(int n) throws IOException {
+            if (buf.remaining() >= n)
+                return true;
+            if (n > buf.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, 2 * buf.capacity()));
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n)
+                if (ch.read(buf) < 0)
+                    break;
+            buf.flip();
+            return buf.remaining() >= n;
+        }
+
+        void advance() throws IOException {
+            if (!ensure(4)) {
+                if (buf.hasRemaining())
+                    throw new IOException("Truncated run " + path);
+                head = null;
+                return;
+            }
+            int size = buf.getInt();
+            if (!ensure(size))
+                throw new IOException("Truncated run " + path);
+            int end = buf.position() + size;
+            head = codec.read(buf);
+            if (buf.position() != end)
+                throw new IllegalStateException("The codec read " + (buf.position() - end + size)
+                        + " bytes instead of " + size);
+        }
+
+        void close() {
+            try {
+                ch.close();
+            } catch (IOException e) {
+                // the file is deleted anyway
+            }
+            delete(path);
+        }
+    }
+
+    /**
+     * Records of a sort in order. Close it to delete the runs.
+     */
+    public static final class Sorted<T> implements Iterator<T>, AutoCloseable {
+        private final Iterator<T> memory;
+        private final List<Run<T>> runs;
+        private final MinPQ<Run<T>> pq;
+
+        private Sorted(Iterator<T> memory) {
+            this.memory = memory;
+            this.runs = new ArrayList<>();
+            this.pq = null;
+        }
+
+        private Sorted(List<Run<T>> runs, Comparator<? super T> order) {
+            this.memory = null;
+            this.runs = runs;
+            pq = new MinPQ<>(runs.size() + 1, (a, b) -> {
+                int c = order.compare(a.head, b.head);
+                return c != 0 ? c : Integer.compare(a.index, b.index);
+            });
+            for (Run<T> r : runs)
+                if (r.head != null)
+                    pq.insert(r);
+        }
+
+        public boolean hasNext() {
+            return memory != null ? memory.hasNext() : !pq.isEmpty();
+        }
+
+        public T next() {
+            if (memory != null)
+                return memory.next();
+            if (pq.isEmpty())
+                throw new NoSuchElementException();
+            Run<T> r = pq.delMin();
+            T t = r.head;
+            try {
+                r.advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (r.head != null)
+                pq.insert(r);
+            return t;
+        }
+
+        public void close() {
+            for (Run<T> r : runs)
+                r.close();
+        }
+    }
+
+
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // Registros {clave, posicion}: pocas claves distintas para probar la estabilidad
+        RecordCodec<int[]> codec = new RecordCodec<int[]>() {
+            public int size(int[] r)                    { return 8; }
+            public void write(int[] r, ByteBuffer out)  { out.putInt(r[0]).putInt(r[1]); }
+            public int[] read(ByteBuffer in)            { return new int[] { in.getInt(), in.getInt() }; }
+        };
+        Comparator<int[]> byKey = Comparator.comparingInt(r -> r[0]);
+        StdRandom.setSeed(5);
+        List<int[]> input = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            input.add(new int[] { StdRandom.uniform(1000), i });
+
+        for (long budget : new long[] { Long.MAX_VALUE, 4L << 20, 64L << 10 }) {
+            ExternalSort<int[]> sorter = new ExternalSort<>(codec, byKey, budget, 4096,
+                    Paths.get(System.getProperty("java.io.tmpdir")));
+            Stopwatch sw = new Stopwatch();
+            int[] count = new int[1];
+            int[] last = { -1, -1 };
+            sorter.sort(input.iterator(), r -> {
+                assert r[0] > last[0] || (r[0] == last[0] && r[1] > last[1]);
+                last[0] = r[0];
+                last[1] = r[1];
+                count[0]++;
+            });
+            assert count[0] == n;
+            StdOut.printf("memoria %12s bytes: %5d runs, %d pasadas, %.3f s%n",
+                    budget == Long.MAX_VALUE ? "sin limite" : "" + budget, sorter.runs(), sorter.passes(),
+                    sw.elapsedTime());
+        }
+
+        // Si la entrada falla a la mitad no quedan runs en el directorio temporal
+        Path dir = Files.createTempDirectory("runs");
+        ExternalSort<int[]> sorter = new ExternalSort<>(codec, byKey, 64L << 10, 4096, dir);
+        Iterator<int[]> all = input.iterator();
+        Iterator<int[]> broken = new Iterator<int[]>() {
+            int read = 0;
+            public boolean hasNext() { return all.hasNext(); }
+            public int[] next() {
+                if (++read > n / 2)
+                    throw new IllegalStateException("Entrada rota");
+                return all.next();
+            }
+        };
+        try {
+            sorter.sort(broken).close();
+            assert false;
+        } catch (IllegalStateException e) {
+            assert sorter.runs() > 0;
+        }
+        try (Stream<Path> left = Files.list(dir)) {
+            assert left.count() == 0;
+        }
+        Files.delete(dir);
+
+        // stringSize cuenta los bytes que escribe putString, tambien con surrogates sueltos
+        String odd = "a\uD800b\uDC00c\uD83D\uDE00";
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        RecordCodec.putString(buf, odd);
+        assert buf.position() == RecordCodec.stringSize(odd);
+    }
+
+}
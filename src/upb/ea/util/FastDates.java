@@ -0,0 +1,225 @@
+package upb.ea.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Parsing of the fixed date formats of the datasets, without SimpleDateFormat.
+ *
+ * The digits are decoded directly into days since 1970-01-01 (epoch day) or
+ * seconds since 1970-01-01T00:00Z (epoch second). No object is created
+ * unless the text is invalid, and since there is no shared state the methods
+ * can be called from any number of threads.
+ *
+ * Every method takes a range [from, to) of a CharSequence, so the dates can
+ * be read in place from a String or from the buffer of a CsvTokenizer.
+ * Invalid text throws DateTimeParseException.
+ */
+public final class FastDates {
+
+    private FastDates() { }
+
+
+    /**
+     * Epoch day of a valid date of the proleptic Gregorian calendar
+     * @throws IllegalArgumentException if the date does not exist
+     */
+    public static int epochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month))
+            throw new IllegalArgumentException("Invalid date: " + year + "-" + month + "-" + day);
+        // days from civil, counting years from March so that February is the last month
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - 400 * era;
+        int dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+        int dayOfEra = 365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return 146097 * era + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+
+    /** yyyy-MM-dd */
+    public static int isoEpochDay(CharSequence s) {
+        return isoEpochDay(s, 0, s.length());
+    }
+
+    /** yyyy-MM-dd */
+    public static int isoEpochDay(CharSequence s, int from, int to) {
+        if (to - from != 10 || s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-')
+            throw invalid(s, from, to);
+        return date(s, from, to, digits(s, from, 4, from, to), digits(s, from + 5, 2, from, to),
+                digits(s, from + 8, 2, from, to));
+    }
+
+    /** MM/dd/yyyy or MM-dd-yyyy */
+    public static int usEpochDay(CharSequence s) {
+        return usEpochDay(s, 0, s.length());
+    }
+
+    /** MM/dd/yyyy or MM-dd-yyyy; the month and the day may have one digit */
+    public static int usEpochDay(CharSequence s, int from, int to) {
+        int p = from;
+        int month = 0, day = 0;
+        int k = 0;
+        for (; p < to && isDigit(s.charAt(p)) && k < 2; p++, k++)
+            month = 10 * month + s.charAt(p) - '0';
+        if (k == 0 || p >= to || (s.charAt(p) != '/' && s.charAt(p) != '-'))
+            throw invalid(s, from, to);
+        char sep = s.charAt(p++);
+        k = 0;
+        for (; p < to && isDigit(s.charAt(p)) && k < 2; p++, k++)
+            day = 10 * day + s.charAt(p) - '0';
+        if (k == 0 || p >= to || s.charAt(p) != sep || to - p - 1 != 4)
+            throw invalid(s, from, to);
+        return date(s, from, to, digits(s, p + 1, 4, from, to), month, day);
+    }
+
+    /** yyyy, as the epoch day of January 1 */
+    public static int yearEpochDay(CharSequence s, int from, int to) {
+        if (to - from != 4)
+            throw invalid(s, from, to);
+        return epochDay(digits(s, from, 4, from, to), 1, 1);
+    }
+
+
+    /**
+     * Format of the Twitter API: EEE MMM dd HH:mm:ss Z yyyy,
+     * e.g. "Wed Oct 11 06:55:44 +0000 2017"
+     */
+    public static long twitterEpochSecond(CharSequence s) {
+        return twitterEpochSecond(s, 0, s.length());
+    }
+
+    public static long twitterEpochSecond(CharSequence s, int from, int to) {
+        if (to - from != 30 || s.charAt(from + 3) != ' ' || s.charAt(from + 7) != ' '
+                || s.charAt(from + 10) != ' ' || s.charAt(from + 13) != ':' || s.charAt(from + 16) != ':'
+                || s.charAt(from + 19) != ' ' || s.charAt(from + 25) != ' ')
+            throw invalid(s, from, to);
+        int month = month(s.charAt(from + 4), s.charAt(from + 5), s.charAt(from + 6));
+        if (month == 0)
+            throw invalid(s, from, to);
+        int day = digits(s, from + 8, 2, from, to);
+        int hour = digits(s, from + 11, 2, from, to);
+        int minute = digits(s, from + 14, 2, from, to);
+        int second = digits(s, from + 17, 2, from, to);
+        char sign = s.charAt(from + 20);
+        if ((sign != '+' && sign != '-') || hour > 23 || minute > 59 || second > 59)
+            throw invalid(s, from, to);
+        int offset = 3600 * digits(s, from + 21, 2, from, to) + 60 * digits(s, from + 23, 2, from, to);
+        if (sign == '-')
+            offset = -offset;
+        int year = digits(s, from + 26, 4, from, to);
+        long days = date(s, from, to, year, month, day);
+        return 86400 * days + 3600 * hour + 60 * minute + second - offset;
+    }
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    // Month from its three letter English abbreviation, 0 if not valid
+    private static int month(char a, char b, char c) {
+        for (int m = 0; m < 12; m++)
+            if (MONTHS.charAt(3 * m) == a && MONTHS.charAt(3 * m + 1) == b && MONTHS.charAt(3 * m + 2) == c)
+                return m + 1;
+        return 0;
+    }
+
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Decimal value of s[p..p+count), all of them must be digits
+    private static int digits(CharSequence s, int p, int count, int from, int to) {
+        int v = 0;
+        for (int i = p; i < p + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c))
+                throw invalid(s, from, to);
+            v = 10 * v + c - '0';
+        }
+        return v;
+    }
+
+    private static int date(CharSequence s, int from, int to, int year, int month, int day) {
+        try {
+            return epochDay(year, month, day);
+        } catch (IllegalArgumentException e) {
+            throw invalid(s, from, to);
+        }
+    }
+
+    private static DateTimeParseException invalid(CharSequence s, int from, int to) {
+        return new DateTimeParseException("Invalid date", s.subSequence(from, to), 0);
+    }
+
+
+    public static void main(String[] args) throws ParseException {
+        // Comparar con java.time y SimpleDateFormat
+        for (int d = -800_000; d < 800_000; d += 7) {
+            LocalDate date = LocalDate.ofEpochDay(d);
+            assert epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()) == d;
+        }
+        assert isoEpochDay("2024-02-29") == LocalDate.of(2024, 2, 29).toEpochDay();
+        assert usEpochDay("9/16/2006") == LocalDate.of(2006, 9, 16).toEpochDay();
+        assert usEpochDay("12-25-1999") == LocalDate.of(1999, 12, 25).toEpochDay();
+        assert isoEpochDay("1894-10-09") == LocalDate.of(1894, 10, 9).toEpochDay();
+        assert yearEpochDay("TV Movie 1985", 9, 13) == LocalDate.of(1985, 1, 1).toEpochDay();
+
+        SimpleDateFormat twitter = new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy", Locale.ENGLISH);
+        String tweet = "Wed Oct 11 06:55:44 +0000 2017";
+        assert twitterEpochSecond(tweet) * 1000 == twitter.parse(tweet).getTime();
+        tweet = "Tue Oct 31 22:10:47 -0500 2017";
+        assert twitterEpochSecond(tweet) * 1000 == twitter.parse(tweet).getTime();
+
+        for (String bad : new String[] { "2023-02-29", "2023-13-01", "2023/01/01", "20x3-01-01" }) {
+            try {
+                isoEpochDay(bad);
+                assert false : bad;
+            } catch (DateTimeParseException e) {
+                // esperado
+            }
+        }
+
+        // Desempeño
+        int n = 1_000_000;
+        String[] dates = new String[n];
+        for (int i = 0; i < n; i++)
+            dates[i] = LocalDate.ofEpochDay(19_000 + i % 1000).toString();
+
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        long checksum = 0;
+        Stopwatch sw = new Stopwatch();
+        for (String d : dates)
+            checksum += sdf.parse(d).getTime() / 86_400_000L;
+        double tSdf = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        for (String d : dates)
+            checksum -= isoEpochDay(d);
+        double tFast = sw.elapsedTime();
+        assert checksum == 0;
+
+        StdOut.printf("SimpleDateFormat : %8.3f s%n", tSdf);
+        StdOut.printf("FastDates        : %8.3f s%n", tFast);
+    }
+
+}
@@ -0,0 +1,117 @@
+package upb.ea.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Split of a CSV file into chunks of whole lines for the parallel loaders.
+ *
+ * The chunks start right after a line break, so each one can be tokenized
+ * on its own. This assumes that no quoted field contains a line break.
+ * parallel() parses the chunks in a thread pool and returns the partial
+ * results in file order, ready to be merged.
+ */
+public final class FileChunks {
+
+    // Size of the window read to find the line break that ends a chunk
+    private static final int SCAN_WINDOW = 64 * 1024;
+
+    private FileChunks() { }
+
+    /**
+     * Parser of the bytes in [from, to) of the file
+     */
+    @FunctionalInterface
+    public interface ChunkParser<R> {
+        R parse(FileChannel ch, long from, long to) throws IOException;
+    }
+
+    /**
+     * Offsets where the chunks start. The first chunk starts after the header
+     * line, every other one right after a line break; the last offset is the
+     * size of the file.
+     */
+    public static long[] lineAligned(FileChannel ch, int chunkSize) throws IOException {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        long size = ch.size();
+        ArrayList<Long> bounds = new ArrayList<>();
+        long start = nextLine(ch, 0);       // skip the header
+        while (start < size) {
+            bounds.add(start);
+            start = start + chunkSize >= size ? size : nextLine(ch, start + chunkSize);
+        }
+        bounds.add(size);
+        long[] a = new long[bounds.size()];
+        for (int i = 0; i < a.length; i++)
+            a[i] = bounds.get(i);
+        return a;
+    }
+
+    /**
+     * Offset after the first '\n' at or after pos, or the size of the file
+     */
+    public static long nextLine(FileChannel ch, long pos) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_WINDOW);
+        long size = ch.size();
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++)
+                if (buf.get(i) == '\n')
+                    return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+
+    /**
+     * Parse the line-aligned chunks of the file (see lineAligned) in parallel
+     * @return the result of each chunk, in file order
+     */
+    public static <R> List<R> parallel(FileChannel ch, int chunkSize, int threads, ChunkParser<R> parser)
+            throws IOException {
+        return parallel(ch, lineAligned(ch, chunkSize), threads, parser);
+    }
+
+    /**
+     * Parse the chunks [bounds[i], bounds[i + 1]) of the file in parallel
+     * @return the result of each chunk, in file order
+     * @throws IllegalStateException if a parser fails or the thread is interrupted
+     */
+    public static <R> List<R> parallel(FileChannel ch, long[] bounds, int threads, ChunkParser<R> parser) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<R>> parts = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                parts.add(pool.submit(() -> parser.parse(ch, from, to)));
+            }
+            List<R> results = new ArrayList<>(parts.size());
+            for (Future<R> f : parts)
+                results.add(f.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the chunks", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error parsing a chunk", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+package upb.ea.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Comparator on several keys, built with a Builder:
+ *
+ * <pre>
+ * KeyComparator&lt;Person&gt; c = KeyComparator.&lt;Person&gt;builder()
+ *         .comparingInt(Person::getEdad)
+ *         .comparingDouble(Person::getPeso).descending()
+ *         .build();
+ * </pre>
+ *
+ * The int, long and double keys are compared without boxing (a float getter
+ * can be used as a double key, the order is the same) and without the
+ * overflow of subtracting them. The keys form a chain of nodes, one class
+ * per kind of key, that the JIT can inline.
+ *
+ * sortByKeys() is the precomputed key mode: the keys of each element are
+ * extracted once into primitive arrays, one per key, and a mergesort of
+ * the indexes compares the arrays. A Comparator extracts the keys of both
+ * elements on every comparison, about 2 n lg n times instead of n.
+ *
+ * @param <T> type of the elements
+ */
+public final class KeyComparator<T> implements Comparator<T> {
+
+    private static final int INSERTION_CUTOFF = 12;
+
+    private final Key<T> first;
+
+    private KeyComparator(Key<T> first) {
+        this.first = first;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public int compare(T a, T b) {
+        return first.compare(a, b);
+    }
+
+
+    /**
+     * Builder of a KeyComparator; the keys are compared in the order they
+     * are added
+     */
+    public static final class Builder<T> {
+        private Key<T> first;
+        private Key<T> last;
+
+        private Builder() { }
+
+        private Builder<T> add(Key<T> k) {
+            if (first == null)
+                first = k;
+            else
+                last.next = k;
+            last = k;
+            return this;
+        }
+
+        public Builder<T> comparingInt(ToIntFunction<? super T> key) {
+            return add(new IntKey<>(key));
+        }
+
+        public Builder<T> comparingLong(ToLongFunction<? super T> key) {
+            return add(new LongKey<>(key));
+        }
+
+        public Builder<T> comparingDouble(ToDoubleFunction<? super T> key) {
+            return add(new DoubleKey<>(key));
+        }
+
+        public <U extends Comparable<? super U>> Builder<T> comparing(Function<? super T, ? extends U> key) {
+            return add(new ObjectKey<T, U>(key, Comparator.naturalOrder()));
+        }
+
+        public <U> Builder<T> comparing(Function<? super T, ? extends U> key, Comparator<? super U> order) {
+            return add(new ObjectKey<T, U>(key, order));
+        }
+
+        /** Reverse the order of the last key */
+        public Builder<T> descending() {
+            if (last == null)
+                throw new IllegalStateException("No key to reverse");
+            last.sign = -last.sign;
+            return this;
+        }
+
+        public KeyComparator<T> build() {
+            if (first == null)
+                throw new IllegalStateException("No keys");
+            KeyComparator<T> c = new KeyComparator<>(first);
+            first = last = null;        // the nodes belong to the comparator now
+            return c;
+        }
+    }
+
+
+    /**
+     * Stable sort by the precomputed keys
+     */
+    public void sortByKeys(T[] a) {
+        int n = a.length;
+        int count = 0;
+        for (Key<T> k = first; k != null; k = k.next)
+            count++;
+        Column[] columns = new Column[count];
+        count = 0;
+        for (Key<T> k = first; k != null; k = k.next)
+            columns[count++] = k.extract(a);
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++)
+            index[i] = i;
+        sort(columns, index.clone(), index, 0, n);
+        T[] copy = a.clone();
+        for (int i = 0; i < n; i++)
+            a[i] = copy[index[i]];
+    }
+
+    public void sortByKeys(List<T> list) {
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) list.toArray();
+        sortByKeys(a);
+        Sorting.copyBack(a, list);
+    }
+
+    private static int compare(Column[] columns, int i, int j) {
+        for (Column col : columns) {
+            int c = col.compare(i, j);
+            if (c != 0)
+                return c;
+        }
+        return 0;
+    }
+
+    // Mergesort of src[lo..hi) into dst, both with the same contents on entry
+    private static void sort(Column[] columns, int[] src, int[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                int t = dst[i];
+                int j = i;
+                for (; j > lo && compare(columns, t, dst[j - 1]) < 0; j--)
+                    dst[j] = dst[j - 1];
+                dst[j] = t;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(columns, dst, src, lo, mid);
+        sort(columns, dst, src, mid, hi);
+        if (compare(columns, src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        for (int i = lo, j = mid, k = lo; k < hi; k++) {
+            if (i < mid && (j >= hi || compare(columns, src[j], src[i]) >= 0))
+                dst[k] = src[i++];
+            else
+                dst[k] = src[j++];
+        }
+    }
+
+
+    private interface Column {
+        int compare(int i, int j);
+    }
+
+    /**
+     * Node of the chain of keys
+     */
+    private abstract static class Key<T> {
+        Key<T> next;
+        int sign = 1;
+
+        abstract int compare(T a, T b);
+
+        // Keys of the elements of a, compared by index
+        abstract Column extract(T[] a);
+
+        final int next(T a, T b) {
+            return next == null ? 0 : next.compare(a, b);
+        }
+    }
+
+    private static final class IntKey<T> extends Key<T> {
+        final ToIntFunction<? super T> f;
+
+        IntKey(ToIntFunction<? super T> f) {
+            this.f = f;
+        }
+
+        int compare(T a, T b) {
+            int c = Integer.compare(f.applyAsInt(a), f.applyAsInt(b));
+            return c != 0 ? sign * c : next(a, b);
+        }
+
+        Column extract(T[] a) {
+            int[] keys = new int[a.length];
+            for (int i = 0; i < a.length; i++)
+                keys[i] = f.applyAsInt(a[i]);
+            int s = sign;
+            return (i, j) -> s * Integer.compare(keys[i], keys[j]);
+        }
+    }
+
+    private static final class LongKey<T> extends Key<T> {
+        final ToLongFunction<? super T> f;
+
+        LongKey(ToLongFunction<? super T> f) {
+            this.f = f;
+        }
+
+        int compare(T a, T b) {
+            int c = Long.compare(f.applyAsLong(a), f.applyAsLong(b));
+            return c != 0 ? sign * c : next(a, b);
+        }
+
+        Column extract(T[] a) {
+            long[] keys = new long[a.length];
+            for (int i = 0; i < a.length; i++)
+                keys[i] = f.applyAsLong(a[i]);
+            int s = sign;
+            return (i, j) -> s * Long.compare(keys[i], keys[j]);
+        }
+    }
+
+    private static final class DoubleKey<T> extends Key<T> {
+        final ToDoubleFunction<? super T> f;
+
+        DoubleKey(ToDoubleFunction<? super T> f) {
+            this.f = f;
+        }
+
+        int compare(T a, T b) {
+            int c = Double.compare(f.applyAsDouble(a), f.applyAsDouble(b));
+            return c != 0 ? sign * c : next(a, b);
+        }
+
+        Column extract(T[] a) {
+            double[] keys = new double[a.length];
+            for (int i = 0; i < a.length; i++)
+                keys[i] = f.applyAsDouble(a[i]);
+            int s = sign;
+            return (i, j) -> s * Double.compare(keys[i], keys[j]);
+        }
+    }
+
+    private static final class ObjectKey<T, U> extends Key<T> {
+        final Function<? super T, ? extends U> f;
+        final Comparator<? super U> order;
+
+        ObjectKey(Function<? super T, ? extends U> f, Comparator<? super U> order) {
+            this.f = f;
+            this.order = order;
+        }
+
+        int compare(T a, T b) {
+            int c = order.compare(f.apply(a), f.apply(b));
+            return c != 0 ? sign * Integer.signum(c) : next(a, b);
+        }
+
+        Column extract(T[] a) {
+            List<U> keys = new ArrayList<>(a.length);
+            for (T t : a)
+                keys.add(f.apply(t));
+            int s = sign;
+            return (i, j) -> s * Integer.signum(order.compare(keys.get(i), keys.get(j)));
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package upb.ea.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to dense indexes 0, 1, 2, ... in order of insertion.
+ *
+ * Open addressing with linear probing over primitive arrays, so there is no
+ * boxing and no node per entry. Typical use: the key packs several small
+ * codes (carrier, airport, day, ...) and the index selects the slot of the
+ * group in arrays kept by the caller.
+ *
+ * Not thread safe.
+ */
+public final class LongIndexMap {
+
+    private long[] tableKeys;
+    private int[] tableIndex;     // index + 1, 0 marks an empty slot
+    private long[] keys;          // keys by index
+    private int n;
+    private int mask;
+
+    public LongIndexMap() {
+        this(16);
+    }
+
+    public LongIndexMap(int expected) {
+        int cap = 16;
+        while (cap < 2 * expected)
+            cap <<= 1;
+        tableKeys = new long[cap];
+        tableIndex = new int[cap];
+        keys = new long[Math.max(expected, 4)];
+        mask = cap - 1;
+    }
+
+    private static int hash(long k) {
+        k *= 0x9E3779B97F4A7C15L;
+        return (int) (k ^ (k >>> 32));
+    }
+
+    /**
+     * Index of key, or -1 if the key is not in the map
+     */
+    public int indexOf(long key) {
+        for (int i = hash(key) & mask; tableIndex[i] != 0; i = (i + 1) & mask)
+            if (tableKeys[i] == key)
+                return tableIndex[i] - 1;
+        return -1;
+    }
+
+    /**
+     * Index of key, adding it with the next free index if it is not in the map
+     */
+    public int add(long key) {
+        int i = hash(key) & mask;
+        for (; tableIndex[i] != 0; i = (i + 1) & mask)
+            if (tableKeys[i] == key)
+                return tableIndex[i] - 1;
+        if (n == keys.length)
+            keys = Arrays.copyOf(keys, 2 * n);
+        keys[n] = key;
+        tableKeys[i] = key;
+        tableIndex[i] = ++n;
+        if (2 * n > tableKeys.length)
+            rehash(2 * tableKeys.length);
+        return n - 1;
+    }
+
+    private void rehash(int cap) {
+        tableKeys = new long[cap];
+        tableIndex = new int[cap];
+        mask = cap - 1;
+        for (int k = 0; k < n; k++) {
+            int i = hash(keys[k]) & mask;
+            while (tableIndex[i] != 0)
+                i = (i + 1) & mask;
+            tableKeys[i] = keys[k];
+            tableIndex[i] = k + 1;
+        }
+    }
+
+    /**
+     * Key with the given index
+     */
+    public long key(int index) {
+        if (index < 0 || index >= n)
+            throw new IndexOutOfBoundsException("Index " + index + " of a map with " + n + " keys");
+        return keys[index];
+    }
+
+    public int size() {
+        return n;
+    }
+
+}
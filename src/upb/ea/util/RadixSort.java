@@ -0,0 +1,191 @@
+package upb.ea.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Radix sorts on extracted keys.
+ *
+ * Instead of calling a Comparator for every comparison, the sort key of
+ * each element is extracted once: a long for numeric keys (LSD radix sort,
+ * 8 passes of one byte, skipping the passes where every key has the same
+ * byte) or a String (MSD radix sort over the bytes of the UTF-16 chars, the
+ * same order as String.compareTo). The sorts compute a permutation of the
+ * indexes, and the elements are moved once at the end. Both sorts are
+ * stable.
+ *
+ * Several numeric keys can be packed into one long: see floatKey and pack.
+ * A key that only approximates the order (a string prefix, a clamped value)
+ * must be monotone, that is a < b implies key(a) <= key(b); the elements
+ * with equal keys are then sorted with a Comparator.
+ */
+public final class RadixSort {
+
+    private static final int INSERTION_CUTOFF = 15;
+
+    private RadixSort() { }
+
+
+    /**
+     * Int with the order of the float: the sign bit of a negative float is
+     * set, so its other bits are flipped to reverse their order
+     */
+    public static int floatKey(float f) {
+        int bits = Float.floatToIntBits(f);
+        return bits < 0 ? bits ^ 0x7FFFFFFF : bits;
+    }
+
+    /** Long ordered by hi and then by lo (both signed) */
+    public static long pack(int hi, int lo) {
+        return (long) hi << 32 | ((lo ^ 0x80000000) & 0xFFFFFFFFL);
+    }
+
+    /** Monotone key of the first four chars of s */
+    public static long prefix(String s) {
+        long key = 0;
+        for (int i = 0; i < 4; i++)
+            key = key << 16 | (i < s.length() ? s.charAt(i) : 0);
+        return key ^ Long.MIN_VALUE;
+    }
+
+
+    /**
+     * Permutation that sorts the keys (signed order): keys[index[0]] is the
+     * smallest. Stable.
+     */
+    public static int[] lsdIndex(long[] keys) {
+        int n = keys.length;
+        long[] k = new long[n], kAux = new long[n];
+        int[] index = new int[n], iAux = new int[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = keys[i] ^ Long.MIN_VALUE;        // unsigned order from here on
+            index[i] = i;
+        }
+        int[] count = new int[257];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++)
+                count[(int) (k[i] >>> shift & 0xFF) + 1]++;
+            if (n == 0 || count[(int) (k[0] >>> shift & 0xFF) + 1] == n)
+                continue;                           // every key has the same byte
+            for (int r = 0; r < 256; r++)
+                count[r + 1] += count[r];
+            for (int i = 0; i < n; i++) {
+                int p = count[(int) (k[i] >>> shift & 0xFF)]++;
+                kAux[p] = k[i];
+                iAux[p] = index[i];
+            }
+            long[] tk = k;
+            k = kAux;
+            kAux = tk;
+            int[] ti = index;
+            index = iAux;
+            iAux = ti;
+        }
+        return index;
+    }
+
+    // Byte d of s: even d is the high byte of char d/2, odd d the low byte; -1 after the end
+    private static int digit(String s, int d) {
+        int i = d >>> 1;
+        if (i >= s.length())
+            return -1;
+        char c = s.charAt(i);
+        return (d & 1) == 0 ? c >>> 8 : c & 0xFF;
+    }
+
+    /**
+     * Permutation that sorts the strings in the order of String.compareTo.
+     * Stable.
+     */
+    public static int[] msdIndex(String[] keys) {
+        int n = keys.length;
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++)
+            index[i] = i;
+        msd(keys, index, new int[n], 0, n, 0);
+        return index;
+    }
+
+    // Sort index[lo..hi), whose keys share the first d bytes
+    private static void msd(String[] keys, int[] index, int[] aux, int lo, int hi, int d) {
+        if (hi - lo <= INSERTION_CUTOFF) {
+            for (int i = lo + 1; i < hi; i++) {
+                int t = index[i];
+                int j = i;
+                for (; j > lo && keys[t].compareTo(keys[index[j - 1]]) < 0; j--)
+                    index[j] = index[j - 1];
+                index[j] = t;
+            }
+            return;
+        }
+        int[] count = new int[256 + 2];
+        for (int i = lo; i < hi; i++)
+            count[digit(keys[index[i]], d) + 2]++;
+        for (int r = 0; r < 256 + 1; r++)
+            count[r + 1] += count[r];
+        for (int i = lo; i < hi; i++)
+            aux[count[digit(keys[index[i]], d) + 1]++] = index[i];
+        System.arraycopy(aux, 0, index, lo, hi - lo);
+        // count[r] is now the end of the keys with byte r - 1; the ended keys are done
+        for (int r = 0; r < 256; r++)
+            if (count[r + 1] - count[r] > 1)
+                msd(keys, index, aux, lo + count[r], lo + count[r + 1], d + 1);
+    }
+
+
+    // Reorder a with the permutation
+    private static <T> void permute(T[] a, int[] index) {
+        T[] copy = a.clone();
+        for (int i = 0; i < a.length; i++)
+            a[i] = copy[index[i]];
+    }
+
+    /**
+     * Sort by a long key; the runs of equal keys are sorted with ties (which
+     * may be null if the key is exact)
+     */
+    public static <T> void sort(T[] a, ToLongFunction<? super T> key, Comparator<? super T> ties) {
+        long[] keys = new long[a.length];
+        for (int i = 0; i < a.length; i++)
+            keys[i] = key.applyAsLong(a[i]);
+        int[] index = lsdIndex(keys);
+        permute(a, index);
+        if (ties == null)
+            return;
+        for (int lo = 0; lo < a.length;) {
+            int hi = lo + 1;
+            while (hi < a.length && keys[index[hi]] == keys[index[lo]])
+                hi++;
+            if (hi - lo > 1)
+                Arrays.sort(a, lo, hi, ties);
+            lo = hi;
+        }
+    }
+
+    /** Sort by a String key */
+    public static <T> void sortByString(T[] a, Function<? super T, String> key) {
+        String[] keys = new String[a.length];
+        for (int i = 0; i < a.length; i++)
+            keys[i] = key.apply(a[i]);
+        permute(a, msdIndex(keys));
+    }
+
+    public static <T> void sort(List<T> list, ToLongFunction<? super T> key, Comparator<? super T> ties) {
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) list.toArray();
+        sort(a, key, ties);
+        Sorting.copyBack(a, list);
+    }
+
+    public static <T> void sortByString(List<T> list, Function<? super T, String> key) {
+        @SuppressWarnings("unchecked")
+        T[] a = (T[]) list.toArray();
+        sortByString(a, key);
+        Sorting.copyBack(a, list);
+    }
+
+}
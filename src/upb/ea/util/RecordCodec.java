@@ -0,0 +1,92 @@
+package upb.ea.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of records, used by ExternalSort to write runs.
+ *
+ * write() must put exactly size(r) bytes and read() must consume the same
+ * bytes it gets back. The static helpers encode strings as an unsigned
+ * short length followed by the UTF-8 bytes (an unpaired surrogate is
+ * written as '?', like String.getBytes), and nullable ints behind a
+ * presence flag.
+ *
+ * @param <T> type of the records
+ */
+public interface RecordCodec<T> {
+
+    /** Number of bytes written by write(r) */
+    int size(T r);
+
+    void write(T r, ByteBuffer out);
+
+    T read(ByteBuffer in);
+
+
+    /** Bytes of s in UTF-8 */
+    static int utf8Length(String s) {
+        int len = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80)
+                len++;
+            else if (c < 0x800)
+                len += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else if (Character.isSurrogate(c))
+                len++;          // getBytes(UTF_8) replaces an unpaired surrogate with '?'
+            else
+                len += 3;
+        }
+        return len;
+    }
+
+    /** Bytes used by putString(s) */
+    static int stringSize(String s) {
+        return 2 + utf8Length(s);
+    }
+
+    static void putString(ByteBuffer out, String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > 0xFFFF)
+            throw new IllegalArgumentException("String longer than 65535 bytes");
+        out.putShort((short) b.length);
+        out.put(b);
+    }
+
+    static String getString(ByteBuffer in) {
+        int len = in.getShort() & 0xFFFF;
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+            in.position(in.position() + len);
+        } else {
+            byte[] b = new byte[len];
+            in.get(b);
+            s = new String(b, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    /** Bytes used by putInteger(v) */
+    static int integerSize(Integer v) {
+        return v == null ? 1 : 5;
+    }
+
+    static void putInteger(ByteBuffer out, Integer v) {
+        if (v == null) {
+            out.put((byte) 0);
+        } else {
+            out.put((byte) 1);
+            out.putInt(v);
+        }
+    }
+
+    static Integer getInteger(ByteBuffer in) {
+        return in.get() == 0 ? null : in.getInt();
+    }
+
+}
@@ -0,0 +1,45 @@
+package upb.ea.util;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Helpers shared by the sorts and their benchmarks.
+ */
+public final class Sorting {
+
+    private Sorting() { }
+
+    /**
+     * Write the elements of a, in order, over the elements of the list (of
+     * the same size); used by the sorts of a List that work on an array
+     */
+    public static <T> void copyBack(T[] a, List<T> list) {
+        ListIterator<T> it = list.listIterator();
+        for (T t : a) {
+            it.next();
+            it.set(t);
+        }
+    }
+
+    /**
+     * Median time in seconds of sorting trials copies of the input; only
+     * the sort is timed, not the copy
+     * @param copy makes a new copy of the input
+     */
+    public static <C> double medianTime(Supplier<C> copy, Consumer<? super C> sort, int trials) {
+        if (trials < 1)
+            throw new IllegalArgumentException("trials must be positive");
+        double[] t = new double[trials];
+        for (int i = 0; i < trials; i++) {
+            C c = copy.get();
+            long t0 = System.nanoTime();
+            sort.accept(c);
+            t[i] = (System.nanoTime() - t0) / 1e9;
+        }
+        return Benchmark.median(t);
+    }
+
+}
@@ -0,0 +1,80 @@
+package upb.ea.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Dictionary encoding for low cardinality string columns.
+ *
+ * Each distinct string gets a small int code, assigned in order of first
+ * appearance (0, 1, 2, ...), so a column can be stored as an array of codes
+ * and every distinct value is kept only once.
+ *
+ * Not thread safe: parallel loaders encode with one dictionary per thread and
+ * then remap the codes with {@link #merge(StringDictionary)}.
+ */
+public final class StringDictionary {
+
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int n;
+
+
+    /**
+     * Code of s, adding it to the dictionary if it is not there
+     */
+    public int encode(String s) {
+        Integer c = codes.get(s);
+        if (c != null)
+            return c;
+        if (n == values.length)
+            values = Arrays.copyOf(values, 2 * n);
+        values[n] = s;
+        codes.put(s, n);
+        return n++;
+    }
+
+    /**
+     * Code of s, or -1 if s is not in the dictionary
+     */
+    public int code(String s) {
+        Integer c = codes.get(s);
+        return c == null ? -1 : c;
+    }
+
+    /**
+     * String with the given code
+     */
+    public String decode(int code) {
+        if (code < 0 || code >= n)
+            throw new IllegalArgumentException("Invalid code: " + code);
+        return values[code];
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Add the values of other to this dictionary
+     * @return array that maps each code of other to the code in this dictionary
+     */
+    public int[] merge(StringDictionary other) {
+        int[] map = new int[other.n];
+        for (int i = 0; i < other.n; i++)
+            map[i] = encode(other.values[i]);
+        return map;
+    }
+
+    /**
+     * Approximate heap used by the dictionary, in bytes
+     */
+    public long footprint() {
+        long bytes = 16 + 4L * values.length;                  // values array
+        for (int i = 0; i < n; i++)
+            bytes += 24 + 16 + values[i].length();             // String + byte[] (Latin-1)
+        bytes += 48 + 4L * Math.max(16, 2 * n) + 32L * n;      // HashMap table and nodes
+        return bytes;
+    }
+
+}
@@ -0,0 +1,231 @@
+package upb.ea.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * The k items with the highest scores seen so far.
+ *
+ * The items are int ids kept in a min-heap of size k ordered by score, so
+ * the root is the weakest item of the top and offer() is O(log k) (O(1) when
+ * the new item does not make it). Equal scores are ordered by id, the
+ * smaller id ranks higher, so the result does not depend on the order of
+ * the offers.
+ *
+ * top() returns the items in descending order of score. The sorted array is
+ * cached until the next change, so repeated queries cost O(k).
+ */
+public class TopK {
+
+    private final int k;
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+    private int[] sorted;           // cache of top(), null after a change
+
+    public TopK(int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive");
+        this.k = k;
+        ids = new int[k];
+        scores = new double[k];
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        sorted = null;
+    }
+
+    // true if item (id, score) ranks below heap entry j
+    private boolean below(int id, double score, int j) {
+        return score < scores[j] || (score == scores[j] && id > ids[j]);
+    }
+
+    private boolean less(int i, int j) {
+        return below(ids[i], scores[i], j);
+    }
+
+    private void exch(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double s = scores[i];
+        scores[i] = scores[j];
+        scores[j] = s;
+    }
+
+    private void swim(int i) {
+        while (i > 0 && less(i, (i - 1) / 2)) {
+            exch(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private void sink(int i) {
+        while (2 * i + 1 < size) {
+            int j = 2 * i + 1;
+            if (j + 1 < size && less(j + 1, j))
+                j++;
+            if (!less(j, i))
+                break;
+            exch(i, j);
+            i = j;
+        }
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < size; i++)
+            if (ids[i] == id)
+                return i;
+        return -1;
+    }
+
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Offer a new item, its id must not have been offered before (use
+     * update() to change the score of an item)
+     * @return true if the item entered the top
+     */
+    public boolean offer(int id, double score) {
+        if (size < k) {
+            ids[size] = id;
+            scores[size] = score;
+            swim(size++);
+        } else if (!below(id, score, 0)) {
+            ids[0] = id;
+            scores[0] = score;
+            sink(0);
+        } else {
+            return false;
+        }
+        sorted = null;
+        return true;
+    }
+
+    /**
+     * Change the score of an item that was already offered. If the item is in
+     * a full top and its score goes down, an item outside the top may have to
+     * take its place, which this structure cannot know: in that case nothing
+     * is changed and the method returns false, and the owner must rebuild
+     * the top offering all its items again.
+     * @return true if the top is up to date
+     */
+    public boolean update(int id, double score) {
+        int i = indexOf(id);
+        if (i < 0) {
+            offer(id, score);
+            return true;
+        }
+        if (score < scores[i] && size == k)
+            return false;
+        double old = scores[i];
+        scores[i] = score;
+        if (score < old)
+            swim(i);
+        else
+            sink(i);
+        sorted = null;
+        return true;
+    }
+
+    /**
+     * Ids of the top in descending order of score
+     */
+    public int[] top() {
+        if (sorted == null) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> a.equals(b) ? 0 : less(a, b) ? 1 : -1);
+            sorted = new int[size];
+            for (int i = 0; i < size; i++)
+                sorted[i] = ids[order[i]];
+        }
+        return sorted.clone();
+    }
+
+
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int k = 5;
+
+        // n items repartidos entre las claves con sesgo (pocas claves con muchos items)
+        StdRandom.setSeed(7);
+        int[] key = new int[n];
+        double[] score = new double[n];
+        for (int i = 0; i < n; i++) {
+            double u = StdRandom.uniform();
+            key[i] = (int) (keys * u * u * u);
+            score[i] = Math.round(StdRandom.uniform(1.0, 5.0) * 100) / 100.0;
+        }
+
+        // Ordenar y tomar los primeros k en cada consulta
+        long t0 = System.nanoTime();
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int c = 0; c < keys; c++)
+            lists.add(new ArrayList<>());
+        for (int i = 0; i < n; i++)
+            lists.get(key[i]).add(i);
+        long t1 = System.nanoTime();
+        Comparator<Integer> byScore = (a, b) -> score[a] != score[b] ? Double.compare(score[b], score[a])
+                : Integer.compare(a, b);
+        int[][] expected = new int[keys][];
+        for (int c = 0; c < keys; c++) {
+            List<Integer> l = new ArrayList<>(lists.get(c));
+            l.sort(byScore);
+            expected[c] = l.subList(0, Math.min(k, l.size())).stream().mapToInt(Integer::intValue).toArray();
+        }
+        long t2 = System.nanoTime();
+
+        // TopK mantenido durante la carga
+        TopK[] tops = new TopK[keys];
+        for (int c = 0; c < keys; c++)
+            tops[c] = new TopK(k);
+        for (int i = 0; i < n; i++)
+            tops[key[i]].offer(i, score[i]);
+        long t3 = System.nanoTime();
+        int[][] result = new int[keys][];
+        for (int c = 0; c < keys; c++)
+            result[c] = tops[c].top();
+        long t4 = System.nanoTime();
+        for (int c = 0; c < keys; c++)
+            result[c] = tops[c].top();
+        long t5 = System.nanoTime();
+
+        for (int c = 0; c < keys; c++)
+            assert Arrays.equals(expected[c], result[c]) : c;
+
+        // Cambios de puntaje: bajar un item del top obliga a reconstruir
+        TopK top = new TopK(2);
+        top.offer(1, 4.0);
+        top.offer(2, 3.0);
+        top.offer(3, 2.0);
+        assert Arrays.equals(top.top(), new int[] { 1, 2 });
+        assert top.update(2, 5.0);
+        assert Arrays.equals(top.top(), new int[] { 2, 1 });
+        assert !top.update(1, 1.0);
+
+        StdOut.printf("%d claves, %d items, k = %d%n", keys, n, k);
+        StdOut.printf("Ordenar y tomar: carga %8.3f s, consulta %8.3f s%n", (t1 - t0) / 1e9, (t2 - t1) / 1e9);
+        StdOut.printf("TopK           : carga %8.3f s, consulta %8.3f s, repetida %8.3f s%n", (t3 - t2) / 1e9,
+                (t4 - t3) / 1e9, (t5 - t4) / 1e9);
+    }
+
+}